@@ -43,6 +43,7 @@ export function createArticle(data: {
  * @param {string} params.status - 状态筛选
  * @param {number} params.authorId - 作者ID筛选
  * @param {string} params.keyword - 关键词搜索
+ * @param {string} params.cursor - 游标分页，首页传空字符串，之后传上次返回的nextCursor
  */
 export function getArticleList(params: {
   page?: number;
@@ -50,6 +51,7 @@ export function getArticleList(params: {
   status?: string;
   authorId?: number;
   keyword?: string;
+  cursor?: string;
 }) {
   return axios.get(`${BASE_URL}/api/article/list`, { params })
 }
@@ -100,10 +102,12 @@ export function submitArticle(id: number) {
  * @param {Object} params - 查询参数
  * @param {number} params.page - 页码，默认1
  * @param {number} params.size - 每页数量，默认10
+ * @param {string} params.cursor - 游标分页，首页传空字符串，之后传上次返回的nextCursor
  */
 export function getPendingArticles(params: {
   page?: number;
   size?: number;
+  cursor?: string;
 }) {
   return axios.get(`${BASE_URL}/api/article/pending`, { params })
 }
@@ -175,11 +179,13 @@ export function uploadImage(file: File, type: 'cover' | 'content' = 'content') {
  * @param {number} params.page - 页码，默认1
  * @param {number} params.size - 每页数量，默认10
  * @param {string} params.status - 状态筛选
+ * @param {string} params.cursor - 游标分页，首页传空字符串，之后传上次返回的nextCursor
  */
 export function getMyArticles(params: {
   page?: number;
   size?: number;
   status?: string;
+  cursor?: string;
 }) {
   return axios.get(`${BASE_URL}/api/article/my`, { params })
 }
@@ -0,0 +1,57 @@
+package com.example.www.config;
+
+import com.example.www.dto.CurrentUser;
+import com.example.www.service.CurrentUserService;
+import com.example.www.util.JwtUtil;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.MethodParameter;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * 解析@LoginUser参数，同一请求内只查找一次
+ */
+public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private static final String ATTRIBUTE = CurrentUserArgumentResolver.class.getName() + ".USER";
+
+    private final CurrentUserService currentUserService;
+
+    public CurrentUserArgumentResolver(CurrentUserService currentUserService) {
+        this.currentUserService = currentUserService;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(LoginUser.class)
+                && CurrentUser.class.isAssignableFrom(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        HttpServletRequest request = webRequest.getNativeRequest(HttpServletRequest.class);
+        if (request == null) {
+            return null;
+        }
+        Object resolved = request.getAttribute(ATTRIBUTE);
+        if (resolved instanceof CurrentUser) {
+            return resolved;
+        }
+
+        JwtUtil.TokenClaims claims = JwtAuthenticationFilter.getClaims(request);
+        if (claims == null) {
+            return null;
+        }
+        // 新版本Token按用户ID查找，旧版本Token按用户名查找
+        CurrentUser user = claims.getUserId() != null
+                ? currentUserService.get(claims.getUserId())
+                : currentUserService.getByUsername(claims.getUsername());
+        if (user != null) {
+            request.setAttribute(ATTRIBUTE, user);
+        }
+        return user;
+    }
+}
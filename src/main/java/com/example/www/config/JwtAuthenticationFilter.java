@@ -0,0 +1,51 @@
+package com.example.www.config;
+
+import com.example.www.util.JwtUtil;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * JWT认证过滤器，每个请求只解析一次Authorization头
+ * 验证通过后把用户信息放到请求属性中，控制器通过getClaims读取
+ * 不拒绝任何请求，是否需要登录仍由各接口自行判断
+ */
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    /**
+     * 请求属性名，值为JwtUtil.TokenClaims
+     */
+    public static final String CLAIMS_ATTRIBUTE = JwtAuthenticationFilter.class.getName() + ".CLAIMS";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String token = JwtUtil.resolveToken(request.getHeader("Authorization"));
+        if (token != null) {
+            JwtUtil.verify(token).ifPresent(claims -> request.setAttribute(CLAIMS_ATTRIBUTE, claims));
+        }
+        chain.doFilter(request, response);
+    }
+
+    /**
+     * 获取当前请求的用户信息
+     * @return 未登录或Token无效时返回null
+     */
+    public static JwtUtil.TokenClaims getClaims(HttpServletRequest request) {
+        Object claims = request.getAttribute(CLAIMS_ATTRIBUTE);
+        return claims instanceof JwtUtil.TokenClaims ? (JwtUtil.TokenClaims) claims : null;
+    }
+
+    /**
+     * 获取当前请求的用户ID
+     * @return 未登录、Token无效或旧版本Token时返回null
+     */
+    public static Long getUserId(HttpServletRequest request) {
+        JwtUtil.TokenClaims claims = getClaims(request);
+        return claims != null ? claims.getUserId() : null;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.www.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标注在控制器方法的CurrentUser参数上，注入当前登录用户快照。
+ * 未登录、Token无效或用户不存在时注入null
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface LoginUser {
+}
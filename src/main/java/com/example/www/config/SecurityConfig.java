@@ -5,6 +5,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -14,7 +15,7 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 @Configuration // 声明为配置类
 public class SecurityConfig {
     /**
-     * 配置安全过滤链，关闭CSRF并放行所有请求
+     * 配置安全过滤链，关闭CSRF并放行所有请求，同时在链中解析JWT
      * @param http HttpSecurity对象
      * @return SecurityFilterChain
      * @throws Exception 配置异常
@@ -23,7 +24,9 @@ public class SecurityConfig {
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         // 关闭CSRF防护，所有请求无需认证即可访问
         http.csrf(csrf -> csrf.disable())
-            .authorizeHttpRequests(auth -> auth.anyRequest().permitAll());
+            .authorizeHttpRequests(auth -> auth.anyRequest().permitAll())
+            // 过滤器只在安全过滤链中注册一次，不声明为Bean以免被Servlet容器重复注册
+            .addFilterBefore(new JwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class);
         return http.build();
     }
 
@@ -1,31 +1,50 @@
 package com.example.www.controller;
 
+import com.example.www.config.JwtAuthenticationFilter;
+import com.example.www.config.LoginUser;
 import com.example.www.dto.ArticleCreateRequest;
 import com.example.www.dto.ArticleUpdateRequest;
 import com.example.www.dto.ArticleReviewRequest;
+import com.example.www.dto.ArticleSummary;
+import com.example.www.dto.CurrentUser;
+import com.example.www.dto.CursorResponse;
 import com.example.www.dto.PageResponse;
 import com.example.www.entity.Article;
 import com.example.www.entity.ArticleImage;
-import com.example.www.entity.User;
+import com.example.www.entity.ArticleRender;
+import com.example.www.entity.ArticleStats;
 import com.example.www.repository.ArticleRepository;
 import com.example.www.repository.ArticleImageRepository;
-import com.example.www.repository.UserRepository;
+import com.example.www.repository.ArticleStatsRepository;
+import com.example.www.service.ArticleCounterService;
 import com.example.www.service.ArticleLikeService;
 import com.example.www.service.ArticleReviewService;
+import com.example.www.service.ArticleSearchService;
 import com.example.www.service.ArticleService;
-import com.example.www.util.JwtUtil;
+import com.example.www.service.AuthorService;
+import com.example.www.service.ImageStorageService;
+import com.example.www.service.MarkdownRenderService;
+import com.example.www.service.PublishedFeedService;
+import com.example.www.util.DataUrlUtil;
 import lombok.Data;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.servlet.http.HttpServletRequest;
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/article")
@@ -42,7 +61,7 @@ public class ArticleController {
     private ArticleImageRepository articleImageRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private ArticleStatsRepository articleStatsRepository;
 
     @Autowired
     private ArticleLikeService articleLikeService;
@@ -53,6 +72,24 @@ public class ArticleController {
     @Autowired
     private ArticleService articleService;
 
+    @Autowired
+    private ImageStorageService imageStorageService;
+
+    @Autowired
+    private MarkdownRenderService markdownRenderService;
+
+    @Autowired
+    private ArticleCounterService articleCounterService;
+
+    @Autowired
+    private ArticleSearchService articleSearchService;
+
+    @Autowired
+    private AuthorService authorService;
+
+    @Autowired
+    private PublishedFeedService publishedFeedService;
+
     /**
      * 创建文章
      */
@@ -69,23 +106,28 @@ public class ArticleController {
             Article article = new Article();
             article.setTitle(request.getTitle());
             article.setContent(request.getContent());
-            article.setCoverImage(request.getCoverImage());
+            article.setCoverImage(imageStorageService.externalize(request.getCoverImage()));
             article.setAuthorId(userId);
             article.setStatus(request.getStatus() != null ? request.getStatus() : "DRAFT");
 
             article = articleRepository.save(article);
+            articleStatsRepository.insertIfMissing(article.getId());
 
-            // 保存文章图片
-            if (request.getImages() != null) {
+            // 保存文章图片，一次saveAll批量插入
+            if (request.getImages() != null && !request.getImages().isEmpty()) {
+                List<ArticleImage> images = new ArrayList<>(request.getImages().size());
                 for (ArticleCreateRequest.ArticleImageRequest imageRequest : request.getImages()) {
-                    ArticleImage image = new ArticleImage();
-                    image.setArticle(article);
-                    image.setImageData(imageRequest.getImageData());
-                    image.setImageName(imageRequest.getImageName());
-                    image.setSortOrder(imageRequest.getSortOrder() != null ? imageRequest.getSortOrder() : 0);
-                    image.setImageUrl(null); // 明确设为 null，兼容只用 base64
-                    articleImageRepository.save(image);
+                    images.add(articleService.newArticleImage(article, imageRequest.getImageData(),
+                            imageRequest.getImageUrl(), imageRequest.getImageName(), imageRequest.getSortOrder()));
                 }
+                articleImageRepository.saveAll(images);
+            }
+
+            // 图片保存后再预渲染，正文中的图片占位符才能解析
+            markdownRenderService.render(article);
+            articleSearchService.index(article);
+            if ("APPROVED".equals(article.getStatus())) {
+                publishedFeedService.onArticleChanged(article.getId(), null);
             }
 
             return ResponseEntity.ok(new CreateResponse(article.getId(), article.getTitle(), article.getStatus(), "文章创建成功"));
@@ -103,42 +145,64 @@ public class ArticleController {
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(required = false) String status,
             @RequestParam(required = false) Long authorId,
-            @RequestParam(required = false) String keyword) {
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String cursor,
+            HttpServletRequest httpRequest) {
         try {
-            Pageable pageable = PageRequest.of(page - 1, size);
-            Page<Article> articlePage;
+            // 传入cursor参数时使用游标分页（关键词搜索仍按页码分页）
+            if (cursor != null && (keyword == null || keyword.trim().isEmpty())) {
+                CursorResponse<ArticleSummary> response = articleService.findSummariesByCursor(status, authorId, cursor, size);
+                authorService.fillSummaryAuthorInfo(response.getRecords());
+                articleLikeService.markLiked(response.getRecords(), getCurrentUserId(httpRequest));
+                return ResponseEntity.ok(response);
+            }
 
-            if (keyword != null && !keyword.trim().isEmpty()) {
+            boolean hasKeyword = keyword != null && !keyword.trim().isEmpty();
+            if ("APPROVED".equals(status) && authorId == null && !hasKeyword) {
+                // 首页已发布文章优先从缓存读取
+                PageResponse<ArticleSummary> feed = publishedFeedService.getPage(page, size);
+                if (feed != null) {
+                    articleLikeService.markLiked(feed.getRecords(), getCurrentUserId(httpRequest));
+                    return ResponseEntity.ok(feed);
+                }
+            }
+
+            // 已发布文章按发布时间倒序，与首页缓存保持一致
+            Pageable pageable = "APPROVED".equals(status) && !hasKeyword
+                    ? PageRequest.of(page - 1, size, Sort.by(Sort.Order.desc("publishedAt"), Sort.Order.desc("id")))
+                    : PageRequest.of(page - 1, size);
+            Page<ArticleSummary> articlePage;
+
+            if (hasKeyword && articleSearchService.isReady()) {
+                // 使用全文索引检索
+                articlePage = articleService.searchSummaries(keyword, status, authorId, pageable);
+            } else if (hasKeyword) {
+                // 索引尚未构建完成时回退到数据库模糊查询
                 if (status != null) {
-                    articlePage = articleRepository.findByStatusAndKeyword(status, keyword, pageable);
+                    articlePage = articleRepository.findSummariesByStatusAndKeyword(status, keyword, pageable);
                 } else if (authorId != null) {
-                    articlePage = articleRepository.findByAuthorIdAndKeyword(authorId, keyword, pageable);
+                    articlePage = articleRepository.findSummariesByAuthorIdAndKeyword(authorId, keyword, pageable);
                 } else {
-                    articlePage = articleRepository.findByKeyword(keyword, pageable);
+                    articlePage = articleRepository.findSummariesByKeyword(keyword, pageable);
                 }
             } else {
                 if (status != null && authorId != null) {
-                    articlePage = articleRepository.findByAuthorIdAndStatus(authorId, status, pageable);
+                    articlePage = articleRepository.findSummariesByAuthorIdAndStatus(authorId, status, pageable);
                 } else if (status != null) {
-                    articlePage = articleRepository.findByStatus(status, pageable);
+                    articlePage = articleRepository.findSummariesByStatus(status, pageable);
                 } else if (authorId != null) {
-                    articlePage = articleRepository.findByAuthorId(authorId, pageable);
+                    articlePage = articleRepository.findSummariesByAuthorId(authorId, pageable);
                 } else {
-                    articlePage = articleRepository.findAll(pageable);
+                    articlePage = articleRepository.findSummaries(pageable);
                 }
             }
 
-            // 填充作者信息
-            List<Article> articles = articlePage.getContent();
-            for (Article article : articles) {
-                Optional<User> author = userRepository.findById(article.getAuthorId());
-                if (author.isPresent()) {
-                    article.setAuthorName(author.get().getUsername());
-                    article.setAuthorAvatar(author.get().getAvatar()); // 新增：设置作者头像
-                }
-            }
+            // 填充作者信息和点赞状态
+            List<ArticleSummary> articles = articlePage.getContent();
+            authorService.fillSummaryAuthorInfo(articles);
+            articleLikeService.markLiked(articles, getCurrentUserId(httpRequest));
 
-            PageResponse<Article> response = new PageResponse<>(
+            PageResponse<ArticleSummary> response = new PageResponse<>(
                 articlePage.getTotalElements(),
                 articlePage.getTotalPages(),
                 page,
@@ -154,9 +218,12 @@ public class ArticleController {
 
     /**
      * 获取文章详情
+     * @param html 为true时同时返回预渲染的HTML、目录和字数
      */
     @GetMapping("/{id}")
-    public ResponseEntity<?> getArticleDetail(@PathVariable Long id, HttpServletRequest httpRequest) {
+    public ResponseEntity<?> getArticleDetail(@PathVariable Long id,
+                                              @RequestParam(defaultValue = "false") boolean html,
+                                              HttpServletRequest httpRequest) {
         try {
             Optional<Article> optionalArticle = articleRepository.findById(id);
             if (optionalArticle.isEmpty()) {
@@ -164,18 +231,26 @@ public class ArticleController {
             }
 
             Article article = optionalArticle.get();
-
-            // 填充作者信息
-            Optional<User> author = userRepository.findById(article.getAuthorId());
-            if (author.isPresent()) {
-                article.setAuthorName(author.get().getUsername());
-                article.setAuthorAvatar(author.get().getAvatar());
-            }
+            // 计数保存在article_stats表，再加上尚未写回数据库的浏览次数和点赞数
+            ArticleStats stats = articleStatsRepository.findById(id).orElseGet(ArticleStats::new);
+            article.setViewCount((int) (stats.getViewCount() + articleCounterService.getPendingViews(id)));
+            article.setLikeCount((int) Math.max(0, stats.getLikeCount() + articleCounterService.getPendingLikes(id)));
 
             // 填充图片信息
             List<ArticleImage> images = articleImageRepository.findByArticleOrderBySortOrderAsc(article);
             article.setImages(images);
 
+            // 填充预渲染结果，渲染结果由写操作保持最新，这里只在缺失时渲染
+            if (html) {
+                ArticleRender render = markdownRenderService.getRender(article, images);
+                article.setContentHtml(render.getContentHtml());
+                article.setToc(markdownRenderService.readToc(render));
+                article.setWordCount(render.getWordCount());
+            }
+
+            // 填充作者信息
+            authorService.fillAuthorInfo(List.of(article));
+
             // 检查当前用户是否点赞
             Long currentUserId = getCurrentUserId(httpRequest);
             if (currentUserId != null) {
@@ -188,6 +263,53 @@ public class ArticleController {
         }
     }
 
+    /**
+     * 获取文章封面，列表接口不再内联Base64封面，由前端按需加载
+     */
+    @GetMapping("/{id}/cover")
+    public ResponseEntity<?> getArticleCover(@PathVariable Long id) {
+        Optional<String> coverImage = articleRepository.findCoverImageById(id);
+        if (coverImage.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        String cover = coverImage.get();
+        URI location = DataUrlUtil.isDataUrl(cover) ? null : coverRedirect(cover);
+        if (location != null) {
+            return ResponseEntity.status(302).location(location).build();
+        }
+
+        // 其余按Base64数据处理；类型按数据内容识别，不使用Data URL中声明的类型，只返回支持的图片格式
+        DataUrlUtil.DecodedData data = DataUrlUtil.decode(cover);
+        String contentType = data != null ? ImageStorageService.detectContentType(data.getBytes(), data.getBytes().length) : null;
+        if (contentType == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_TYPE, contentType)
+                .header("X-Content-Type-Options", "nosniff")
+                .cacheControl(CacheControl.maxAge(1, TimeUnit.HOURS))
+                .body(data.getBytes());
+    }
+
+    /**
+     * 封面跳转地址，只允许http(s)绝对地址和本站路径（不允许//开头的协议相对地址）
+     * @return 地址无效时返回null
+     */
+    private static URI coverRedirect(String cover) {
+        boolean absolute = cover.regionMatches(true, 0, "http://", 0, 7) || cover.regionMatches(true, 0, "https://", 0, 8);
+        boolean sameOrigin = cover.startsWith("/") && !cover.startsWith("//") && !cover.startsWith("/\\");
+        if (!absolute && !sameOrigin) {
+            return null;
+        }
+        try {
+            URI uri = new URI(cover);
+            return absolute && uri.getHost() == null ? null : uri;
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+
     /**
      * 更新文章
      */
@@ -246,6 +368,8 @@ public class ArticleController {
             }
 
             articleRepository.delete(article);
+            articleSearchService.remove(id);
+            publishedFeedService.onArticleDeleted(id, article.getStatus());
             return ResponseEntity.ok("文章删除成功");
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("删除文章失败: " + e.getMessage());
@@ -283,6 +407,7 @@ public class ArticleController {
 
             article.setStatus("PENDING");
             articleRepository.save(article);
+            articleSearchService.updateStatus(id, "PENDING");
 
             return ResponseEntity.ok("文章已提交审核");
         } catch (Exception e) {
@@ -297,32 +422,32 @@ public class ArticleController {
     public ResponseEntity<?> getPendingArticles(
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int size,
-            HttpServletRequest httpRequest) {
+            @RequestParam(required = false) String cursor,
+            @LoginUser CurrentUser currentUser) {
         try {
             // 检查管理员权限
-            Long userId = getCurrentUserId(httpRequest);
-            if (userId == null) {
+            if (currentUser == null) {
                 return ResponseEntity.status(401).body("未登录");
             }
 
-            Optional<User> user = userRepository.findById(userId);
-            if (user.isEmpty() || !"ADMIN".equals(user.get().getUserType())) {
+            if (!currentUser.isAdmin()) {
                 return ResponseEntity.status(403).body("无权限访问");
             }
 
+            if (cursor != null) {
+                CursorResponse<ArticleSummary> response = articleService.findSummariesByCursor("PENDING", null, cursor, size);
+                authorService.fillSummaryAuthorInfo(response.getRecords());
+                return ResponseEntity.ok(response);
+            }
+
             Pageable pageable = PageRequest.of(page - 1, size);
-            Page<Article> articlePage = articleRepository.findByStatus("PENDING", pageable);
+            Page<ArticleSummary> articlePage = articleRepository.findSummariesByStatus("PENDING", pageable);
 
             // 填充作者信息
-            List<Article> articles = articlePage.getContent();
-            for (Article article : articles) {
-                Optional<User> author = userRepository.findById(article.getAuthorId());
-                if (author.isPresent()) {
-                    article.setAuthorName(author.get().getUsername());
-                }
-            }
+            List<ArticleSummary> articles = articlePage.getContent();
+            authorService.fillSummaryAuthorInfo(articles);
 
-            PageResponse<Article> response = new PageResponse<>(
+            PageResponse<ArticleSummary> response = new PageResponse<>(
                 articlePage.getTotalElements(),
                 articlePage.getTotalPages(),
                 page,
@@ -340,15 +465,14 @@ public class ArticleController {
      * 审核文章
      */
     @PostMapping("/{id}/review")
-    public ResponseEntity<?> reviewArticle(@PathVariable Long id, @RequestBody ArticleReviewRequest request, HttpServletRequest httpRequest) {
+    public ResponseEntity<?> reviewArticle(@PathVariable Long id, @RequestBody ArticleReviewRequest request, @LoginUser CurrentUser currentUser) {
         try {
             // 获取当前用户
-            Long userId = getCurrentUserId(httpRequest);
-            if (userId == null) {
+            if (currentUser == null) {
                 return ResponseEntity.status(401).body("未登录");
             }
 
-            articleReviewService.reviewArticle(id, request, userId);
+            articleReviewService.reviewArticle(id, request, currentUser);
             return ResponseEntity.ok("审核完成");
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("审核失败: " + e.getMessage());
@@ -397,14 +521,12 @@ public class ArticleController {
     @PostMapping("/{id}/view")
     public ResponseEntity<?> incrementViewCount(@PathVariable Long id) {
         try {
-            Optional<Article> optionalArticle = articleRepository.findById(id);
-            if (optionalArticle.isEmpty()) {
+            if (!articleRepository.existsById(id)) {
                 return ResponseEntity.notFound().build();
             }
 
-            Article article = optionalArticle.get();
-            article.setViewCount(article.getViewCount() + 1);
-            articleRepository.save(article);
+            // 只在内存中累加，由定时任务批量写回
+            articleCounterService.incrementView(id);
 
             return ResponseEntity.ok("浏览次数已更新");
         } catch (Exception e) {
@@ -420,6 +542,7 @@ public class ArticleController {
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(required = false) String status,
+            @RequestParam(required = false) String cursor,
             HttpServletRequest httpRequest) {
         try {
             Long userId = getCurrentUserId(httpRequest);
@@ -427,16 +550,23 @@ public class ArticleController {
                 return ResponseEntity.status(401).body("未登录");
             }
 
+            if (cursor != null) {
+                CursorResponse<ArticleSummary> response = articleService.findSummariesByCursor(status, userId, cursor, size);
+                articleLikeService.markLiked(response.getRecords(), userId);
+                return ResponseEntity.ok(response);
+            }
+
             Pageable pageable = PageRequest.of(page - 1, size);
-            Page<Article> articlePage;
+            Page<ArticleSummary> articlePage;
 
             if (status != null) {
-                articlePage = articleRepository.findByAuthorIdAndStatus(userId, status, pageable);
+                articlePage = articleRepository.findSummariesByAuthorIdAndStatus(userId, status, pageable);
             } else {
-                articlePage = articleRepository.findByAuthorId(userId, pageable);
+                articlePage = articleRepository.findSummariesByAuthorId(userId, pageable);
             }
+            articleLikeService.markLiked(articlePage.getContent(), userId);
 
-            PageResponse<Article> response = new PageResponse<>(
+            PageResponse<ArticleSummary> response = new PageResponse<>(
                 articlePage.getTotalElements(),
                 articlePage.getTotalPages(),
                 page,
@@ -454,13 +584,8 @@ public class ArticleController {
      * 从请求中获取当前用户ID
      */
     private Long getCurrentUserId(HttpServletRequest request) {
-        String authHeader = request.getHeader("Authorization");
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            return null;
-        }
-
-        String token = authHeader.replace("Bearer ", "");
-        return JwtUtil.getUserIdFromToken(token);
+        // Token已由JwtAuthenticationFilter验证并解析
+        return JwtAuthenticationFilter.getUserId(request);
     }
 
     @Data
@@ -0,0 +1,147 @@
+package com.example.www.controller;
+
+import com.example.www.config.JwtAuthenticationFilter;
+import com.example.www.service.ImageDerivativeService;
+import com.example.www.service.ImageStorageService;
+import com.example.www.util.FileTransferUtil;
+import com.example.www.util.HttpRangeUtil;
+import com.example.www.util.ImageUrlUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 图片上传和访问接口
+ */
+@RestController
+@RequestMapping("/api")
+@CrossOrigin(origins = {
+    "http://localhost:3000", "http://127.0.0.1:3000",
+    "http://localhost:5173", "http://127.0.0.1:5173"
+})
+public class ImageController {
+
+    @Autowired
+    private ImageStorageService imageStorageService;
+
+    @Autowired
+    private ImageDerivativeService imageDerivativeService;
+
+    /**
+     * 上传图片，直接从multipart流写入磁盘，需要登录
+     * @param type cover-封面，content-内容插图
+     */
+    @PostMapping("/upload/image")
+    public ResponseEntity<?> uploadImage(@RequestParam("file") MultipartFile file,
+                                         @RequestParam(defaultValue = "content") String type,
+                                         HttpServletRequest request) {
+        if (JwtAuthenticationFilter.getUserId(request) == null) {
+            return ResponseEntity.status(401).body("未登录");
+        }
+        if (!"cover".equals(type) && !"content".equals(type)) {
+            return ResponseEntity.badRequest().body("type只能为cover或content");
+        }
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().body("图片不能为空");
+        }
+        try (InputStream in = file.getInputStream()) {
+            String hash = imageStorageService.store(in);
+            Map<String, Object> result = new HashMap<>();
+            result.put("url", imageStorageService.toUrl(hash));
+            result.put("hash", hash);
+            result.put("size", file.getSize());
+            result.put("type", type);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IOException e) {
+            return ResponseEntity.status(500).body("图片上传失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 访问图片，支持ETag缓存校验和Range请求
+     */
+    @GetMapping("/images/{hash}")
+    public void getImage(@PathVariable String hash, HttpServletRequest request,
+                         HttpServletResponse response) throws IOException {
+        Path file = imageStorageService.find(hash);
+        if (file == null) {
+            response.sendError(404);
+            return;
+        }
+        // 内容寻址，哈希即ETag，内容永不改变
+        sendImage(file, "\"" + hash + "\"", true, request, response);
+    }
+
+    /**
+     * 访问指定尺寸的图片（thumb、medium、original）。
+     * 衍生图尚未生成时先返回原图，且只允许短时间缓存，生成后再访问即得到衍生图
+     */
+    @GetMapping("/images/{hash}/{size}")
+    public void getSizedImage(@PathVariable String hash, @PathVariable String size,
+                              HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!ImageUrlUtil.ORIGINAL.equals(size) && !imageDerivativeService.isSupportedSize(size)) {
+            response.sendError(404);
+            return;
+        }
+        Path file = imageStorageService.find(hash);
+        if (file == null) {
+            response.sendError(404);
+            return;
+        }
+        if (ImageUrlUtil.ORIGINAL.equals(size)) {
+            sendImage(file, "\"" + hash + "\"", true, request, response);
+            return;
+        }
+        Path derivative = imageStorageService.findDerivative(hash, size);
+        if (derivative != null) {
+            sendImage(derivative, "\"" + hash + "-" + size + "\"", true, request, response);
+        } else {
+            sendImage(file, "\"" + hash + "\"", false, request, response);
+        }
+    }
+
+    private void sendImage(Path file, String etag, boolean immutable, HttpServletRequest request,
+                           HttpServletResponse response) throws IOException {
+        response.setHeader("ETag", etag);
+        response.setHeader("Cache-Control", immutable ? "public, max-age=31536000, immutable" : "public, max-age=60");
+        response.setHeader("Accept-Ranges", "bytes");
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null && (ifNoneMatch.contains(etag) || ifNoneMatch.trim().equals("*"))) {
+            response.setStatus(304);
+            return;
+        }
+
+        String contentType = imageStorageService.detectContentType(file);
+        response.setContentType(contentType != null ? contentType : "application/octet-stream");
+
+        long length = Files.size(file);
+        String ifRange = request.getHeader("If-Range");
+        HttpRangeUtil.ByteRange range = (ifRange == null || ifRange.equals(etag))
+                ? HttpRangeUtil.parse(request.getHeader("Range"), length)
+                : null;
+        if (range == HttpRangeUtil.ByteRange.UNSATISFIABLE) {
+            response.setHeader("Content-Range", "bytes */" + length);
+            response.sendError(416);
+            return;
+        }
+        if (range != null) {
+            response.setStatus(206);
+            response.setHeader("Content-Range", range.toContentRange(length));
+            FileTransferUtil.sendFile(request, response, file, range.getStart(), range.getLength());
+        } else {
+            FileTransferUtil.sendFile(request, response, file, 0, length);
+        }
+    }
+}
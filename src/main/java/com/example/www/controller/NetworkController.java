@@ -1,10 +1,13 @@
 package com.example.www.controller;
 
+import com.example.www.util.HttpRangeUtil;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.*;
 import java.net.*;
@@ -18,6 +21,28 @@ import java.util.*;
 @CrossOrigin(origins = {"http://localhost:3000", "http://127.0.0.1:3000", "http://localhost:5173", "http://127.0.0.1:5173"})
 public class NetworkController {
 
+    // 代理转发时不透传的逐跳头和会与本站冲突的头
+    private static final Set<String> SKIPPED_PROXY_HEADERS = Set.of(
+        "connection", "keep-alive", "proxy-authenticate", "proxy-authorization", "te", "trailer",
+        "transfer-encoding", "upgrade", "set-cookie", "content-length"
+    );
+
+    // 代理响应体的最大字节数
+    @Value("${network.proxy.max-size-bytes:52428800}")
+    private long proxyMaxSizeBytes;
+
+    // 测速下载的最大字节数
+    @Value("${network.speedtest.max-size-bytes:10737418240}")
+    private long speedtestMaxSizeBytes;
+
+    // 测速下载文件的大小，区间落在文件内的下载由Tomcat通过sendfile发送，0表示不使用
+    @Value("${network.speedtest.sendfile-size-bytes:67108864}")
+    private long speedtestSendfileSizeBytes;
+
+    // 代理转发时的复制缓冲区大小
+    @Value("${network.proxy.buffer-size:8192}")
+    private int proxyBufferSize;
+
     // 1. 通用HTTP代理接口
     @GetMapping("/proxy")
     public ResponseEntity<?> proxy(@RequestParam String url, @RequestParam(defaultValue = "GET") String method) {
@@ -29,6 +54,11 @@ public class NetworkController {
             conn.setReadTimeout(10000);
             conn.connect();
             int status = conn.getResponseCode();
+            if (conn.getContentLengthLong() > proxyMaxSizeBytes) {
+                conn.disconnect();
+                return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                    .body(Map.of("error", "响应体超过" + proxyMaxSizeBytes + "字节，请使用stream=true"));
+            }
             Map<String, List<String>> headerFields = conn.getHeaderFields();
             Map<String, String> headers = new HashMap<>();
             for (Map.Entry<String, List<String>> entry : headerFields.entrySet()) {
@@ -37,7 +67,18 @@ public class NetworkController {
                 }
             }
             InputStream is = (status >= 400) ? conn.getErrorStream() : conn.getInputStream();
-            byte[] body = is != null ? is.readAllBytes() : new byte[0];
+            // 最多读取上限+1字节，超出即返回413，不把整个响应体读入内存
+            byte[] body = new byte[0];
+            if (is != null) {
+                try (InputStream in = is) {
+                    body = in.readNBytes((int) Math.min(proxyMaxSizeBytes + 1, Integer.MAX_VALUE - 8));
+                }
+            }
+            if (body.length > proxyMaxSizeBytes) {
+                conn.disconnect();
+                return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                    .body(Map.of("error", "响应体超过" + proxyMaxSizeBytes + "字节，请使用stream=true"));
+            }
             Instant end = Instant.now();
             Map<String, Object> result = new HashMap<>();
             result.put("status", status);
@@ -56,25 +97,227 @@ public class NetworkController {
         }
     }
 
+    // 1.1 通用HTTP代理接口 - 流式转发
+    // 上游状态码、响应头和响应体原样返回，响应体经固定大小的缓冲区直接写到客户端；
+    // 耗时通过Server-Timing头返回：dns、connect、ttfb；分块传输且请求头带 TE: trailers 时在末尾追加total
+    @GetMapping(value = "/proxy", params = "stream=true")
+    public void proxyStream(@RequestParam String url, @RequestParam(defaultValue = "GET") String method,
+                            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        long start = System.nanoTime();
+        HttpURLConnection conn = null;
+        try {
+            URL target = new URL(url);
+            // 先单独解析域名以统计DNS耗时，连接时命中JVM的DNS缓存
+            InetAddress.getAllByName(target.getHost());
+            long dnsDone = System.nanoTime();
+
+            conn = (HttpURLConnection) target.openConnection();
+            conn.setRequestMethod(method);
+            conn.setConnectTimeout(5000);
+            conn.setReadTimeout(10000);
+            conn.connect();
+            long connectDone = System.nanoTime();
+
+            int status = conn.getResponseCode();
+            long firstByte = System.nanoTime();
+            long contentLength = conn.getContentLengthLong();
+            if (contentLength > proxyMaxSizeBytes) {
+                response.sendError(HttpStatus.PAYLOAD_TOO_LARGE.value(), "响应体超过" + proxyMaxSizeBytes + "字节");
+                return;
+            }
+
+            response.setStatus(status);
+            for (Map.Entry<String, List<String>> entry : conn.getHeaderFields().entrySet()) {
+                String name = entry.getKey();
+                if (name == null || SKIPPED_PROXY_HEADERS.contains(name.toLowerCase(Locale.ROOT))
+                        || name.regionMatches(true, 0, "access-control-", 0, 15)) {
+                    continue;
+                }
+                for (String value : entry.getValue()) {
+                    response.addHeader(name, value);
+                }
+            }
+            if (contentLength >= 0) {
+                response.setContentLengthLong(contentLength);
+            }
+            response.setHeader("Server-Timing", String.format(Locale.ROOT, "dns;dur=%.1f, connect;dur=%.1f, ttfb;dur=%.1f",
+                millis(dnsDone - start), millis(connectDone - dnsDone), millis(firstByte - connectDone)));
+
+            // 分块传输且请求头TE中声明接受trailers时，在响应末尾追加总耗时
+            long[] end = new long[1];
+            if (contentLength < 0 && acceptsTrailers(request)) {
+                try {
+                    response.setTrailerFields(() -> Map.of("Server-Timing",
+                        String.format(Locale.ROOT, "total;dur=%.1f", millis(end[0] - start))));
+                } catch (IllegalStateException e) {
+                    // 容器不支持或响应已提交时不发送trailer
+                }
+            }
+
+            InputStream is = (status >= 400) ? conn.getErrorStream() : conn.getInputStream();
+            if (is == null) {
+                return;
+            }
+            try (InputStream in = is) {
+                OutputStream os = response.getOutputStream();
+                byte[] buffer = new byte[proxyBufferSize];
+                long copied = 0;
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    copied += n;
+                    if (copied > proxyMaxSizeBytes) {
+                        // 响应头已发出，只能中断连接
+                        throw new IOException("响应体超过" + proxyMaxSizeBytes + "字节，已中断");
+                    }
+                    os.write(buffer, 0, n);
+                }
+                end[0] = System.nanoTime();
+                os.flush();
+            }
+        } catch (IOException e) {
+            if (!response.isCommitted()) {
+                response.sendError(HttpStatus.BAD_GATEWAY.value(), e.getMessage());
+            } else {
+                throw e;
+            }
+        } finally {
+            if (conn != null) {
+                conn.disconnect();
+            }
+        }
+    }
+
+    /**
+     * 请求为HTTP/1.1及以上，且TE请求头中包含trailers
+     */
+    private static boolean acceptsTrailers(HttpServletRequest request) {
+        String protocol = request.getProtocol();
+        if (protocol == null || "HTTP/1.0".equals(protocol) || "HTTP/0.9".equals(protocol)) {
+            return false;
+        }
+        Enumeration<String> headers = request.getHeaders("TE");
+        while (headers != null && headers.hasMoreElements()) {
+            for (String token : headers.nextElement().split(",")) {
+                int semicolon = token.indexOf(';');
+                String coding = (semicolon >= 0 ? token.substring(0, semicolon) : token).trim();
+                if ("trailers".equalsIgnoreCase(coding)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
     // 2. 带宽测速接口 - 下载
+    // 数据来自启动后只生成一次的随机缓冲区，循环写出，不再每次请求调用随机数生成器；
+    // 支持Range请求，客户端可按区间并行多连接下载。
+    // 连接器支持sendfile且区间落在测速文件内时，由Tomcat用FileChannel.transferTo零拷贝发送，
+    // 否则从缓冲区写到输出流（会复制到Tomcat的socket缓冲区）
     @GetMapping("/speedtest/download")
-    public void download(HttpServletResponse response, @RequestParam(defaultValue = "10485760") int size) throws IOException {
+    public void download(HttpServletRequest request, HttpServletResponse response,
+                         @RequestParam(defaultValue = "10485760") long size) throws IOException {
         // 默认10MB
+        if (size < 0 || size > speedtestMaxSizeBytes) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "size必须在0到" + speedtestMaxSizeBytes + "之间");
+            return;
+        }
         response.setContentType("application/octet-stream");
         response.setHeader("Content-Disposition", "attachment; filename=download.bin");
-        byte[] buffer = new byte[1024 * 1024]; // 1MB
-        Random random = new Random();
-        int written = 0;
+        response.setHeader("Cache-Control", "no-store");
+        response.setHeader("Accept-Ranges", "bytes");
+
+        long start = 0;
+        long length = size;
+        HttpRangeUtil.ByteRange range = HttpRangeUtil.parse(request.getHeader("Range"), size);
+        if (range == HttpRangeUtil.ByteRange.UNSATISFIABLE) {
+            response.setHeader("Content-Range", "bytes */" + size);
+            response.sendError(416);
+            return;
+        }
+        if (range != null) {
+            response.setStatus(206);
+            response.setHeader("Content-Range", range.toContentRange(size));
+            start = range.getStart();
+            length = range.getLength();
+        }
+        response.setContentLengthLong(length);
+
+        byte[] data = SpeedtestData.BYTES;
+        // 从区间起点对应的缓冲区位置开始写，多段下载拼接后与完整下载的内容一致
+        int offset = (int) (start % data.length);
+        if (length > 0 && speedtestSendfileSizeBytes > 0
+                && Boolean.TRUE.equals(request.getAttribute("org.apache.tomcat.sendfile.support"))) {
+            SpeedtestData.SendFile file = SpeedtestData.file(speedtestSendfileSizeBytes);
+            if (file != null && offset + length <= file.size) {
+                request.setAttribute("org.apache.tomcat.sendfile.filename", file.path);
+                request.setAttribute("org.apache.tomcat.sendfile.start", (long) offset);
+                request.setAttribute("org.apache.tomcat.sendfile.end", offset + length);
+                return;
+            }
+        }
+
         OutputStream os = response.getOutputStream();
-        while (written < size) {
-            random.nextBytes(buffer);
-            int toWrite = Math.min(buffer.length, size - written);
-            os.write(buffer, 0, toWrite);
-            written += toWrite;
+        long remaining = length;
+        while (remaining > 0) {
+            int toWrite = (int) Math.min(data.length - offset, remaining);
+            os.write(data, offset, toWrite);
+            remaining -= toWrite;
+            offset = 0;
         }
         os.flush();
     }
 
+    /**
+     * 测速下载使用的随机数据，首次使用时生成，内容不可压缩
+     */
+    private static class SpeedtestData {
+        static final byte[] BYTES = new byte[4 * 1024 * 1024]; // 4MB
+        static {
+            new Random().nextBytes(BYTES);
+        }
+
+        private static SendFile sendFile;
+        private static boolean sendFileFailed;
+
+        /**
+         * 测速文件，内容为缓冲区重复写入，与从缓冲区循环写出的内容一致；首次使用时创建，创建失败后不再尝试
+         * @param size 期望大小，按缓冲区大小向下取整，至少一份
+         */
+        static synchronized SendFile file(long size) {
+            if (sendFile == null && !sendFileFailed) {
+                long copies = Math.max(1, size / BYTES.length);
+                try {
+                    File file = File.createTempFile("speedtest", ".bin").getCanonicalFile();
+                    file.deleteOnExit();
+                    try (OutputStream os = new FileOutputStream(file)) {
+                        for (long i = 0; i < copies; i++) {
+                            os.write(BYTES);
+                        }
+                    }
+                    sendFile = new SendFile(file.getAbsolutePath(), copies * BYTES.length);
+                } catch (IOException e) {
+                    System.out.println("测速文件创建失败，改为从内存缓冲区发送: " + e.getMessage());
+                    sendFileFailed = true;
+                }
+            }
+            return sendFile;
+        }
+
+        static class SendFile {
+            final String path;
+            final long size;
+
+            SendFile(String path, long size) {
+                this.path = path;
+                this.size = size;
+            }
+        }
+    }
+
     // 2. 带宽测速接口 - 上传
     @PostMapping("/speedtest/upload")
     public Map<String, Object> upload(@RequestParam("file") MultipartFile file) throws IOException {
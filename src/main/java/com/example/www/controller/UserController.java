@@ -1,16 +1,27 @@
 package com.example.www.controller;
 
+import com.example.www.config.JwtAuthenticationFilter;
+import com.example.www.config.LoginUser;
+import com.example.www.dto.CurrentUser;
 import com.example.www.entity.User;
 import com.example.www.repository.UserRepository;
+import com.example.www.service.CurrentUserService;
+import com.example.www.service.ImageStorageService;
+import com.example.www.service.PasswordHashingService;
+import com.example.www.service.PublishedFeedService;
 import com.example.www.util.JwtUtil;
 import lombok.Data;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import jakarta.servlet.http.HttpServletRequest;
 
 /**
@@ -21,8 +32,18 @@ import jakarta.servlet.http.HttpServletRequest;
 public class UserController {
     @Autowired // 自动注入用户仓库
     private UserRepository userRepository;
-    // 密码加密器，用于加密和校验密码
-    private BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    @Autowired // 自动注入图片存储服务
+    private ImageStorageService imageStorageService;
+    @Autowired // 自动注入首页缓存服务
+    private PublishedFeedService publishedFeedService;
+    @Autowired // 自动注入当前用户缓存服务
+    private CurrentUserService currentUserService;
+    @Autowired // 自动注入密码哈希服务，BCrypt计算在独立线程池中执行
+    private PasswordHashingService passwordHashingService;
+    // 哈希完成后的数据库操作切换到应用任务线程池，不占用有界的哈希线程
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private Executor applicationTaskExecutor;
 
     /**
      * 用户注册接口
@@ -30,23 +51,33 @@ public class UserController {
      * @return 注册结果
      */
     @PostMapping("/register")
-    public ResponseEntity<?> register(@RequestBody RegisterRequest request) {
+    public CompletableFuture<ResponseEntity<?>> register(@RequestBody RegisterRequest request) {
         // 检查用户名是否已存在
         if (userRepository.findByUsername(request.getUsername()).isPresent()) {
-            return ResponseEntity.badRequest().body("用户名已存在");
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("用户名已存在"));
         }
         // 检查手机号是否已注册
         if (userRepository.findByPhone(request.getPhone()).isPresent()) {
-            return ResponseEntity.badRequest().body("手机号已注册");
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("手机号已注册"));
         }
         // 检查邮箱是否已注册
         if (userRepository.findByEmail(request.getEmail()).isPresent()) {
-            return ResponseEntity.badRequest().body("邮箱已注册");
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("邮箱已注册"));
         }
+        // 密码加密在哈希线程池中完成后再保存用户
+        return passwordHashingService.encode(request.getPassword())
+                .<ResponseEntity<?>>thenApplyAsync(passwordHash -> saveNewUser(request, passwordHash), applicationTaskExecutor)
+                .exceptionally(e -> hashingFailed("注册失败", e));
+    }
+
+    /**
+     * 创建并保存新用户
+     */
+    private ResponseEntity<?> saveNewUser(RegisterRequest request, String passwordHash) {
         // 创建新用户并设置属性
         User user = new User();
         user.setUsername(request.getUsername());
-        user.setPassword(passwordEncoder.encode(request.getPassword())); // 密码加密存储
+        user.setPassword(passwordHash); // 密码加密存储
         user.setPhone(request.getPhone());
         user.setEmail(request.getEmail());
         // 设置用户类型，默认USER
@@ -60,7 +91,7 @@ public class UserController {
         if (request.getAvatar() == null || request.getAvatar().isEmpty()) {
             user.setAvatar(defaultAvatar);
         } else {
-            user.setAvatar(request.getAvatar());
+            user.setAvatar(storeAvatar(request.getAvatar()));
         }
         // 保存用户到数据库
         userRepository.save(user);
@@ -73,18 +104,40 @@ public class UserController {
      * @return 登录结果，成功返回JWT Token
      */
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody LoginRequest request) {
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody LoginRequest request) {
         // 根据用户名查找用户
         Optional<User> userOpt = userRepository.findByUsername(request.getUsername());
-        // 校验密码
-        if (userOpt.isPresent() && passwordEncoder.matches(request.getPassword(), userOpt.get().getPassword())) {
-            User user = userOpt.get();
-            // 生成包含用户ID的JWT Token
-            String token = JwtUtil.generateToken(user.getId(), request.getUsername());
-            return ResponseEntity.ok(token);
-        } else {
-            return ResponseEntity.badRequest().body("用户名或密码错误");
+        if (userOpt.isEmpty()) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("用户名或密码错误"));
         }
+        User user = userOpt.get();
+        // 校验密码，哈希强度低于当前配置时顺带升级
+        return passwordHashingService.verify(request.getPassword(), user.getPassword())
+                .<ResponseEntity<?>>thenApplyAsync(result -> {
+                    if (!result.isMatched()) {
+                        return ResponseEntity.badRequest().body("用户名或密码错误");
+                    }
+                    if (result.getUpgradedHash() != null) {
+                        userRepository.updatePassword(user.getId(), result.getUpgradedHash());
+                        System.out.println("用户 " + user.getId() + " 的密码哈希已升级到当前强度");
+                    }
+                    // 生成包含用户ID的JWT Token
+                    String token = JwtUtil.generateToken(user.getId(), request.getUsername());
+                    return ResponseEntity.ok(token);
+                }, applicationTaskExecutor)
+                .exceptionally(e -> hashingFailed("登录失败", e));
+    }
+
+    /**
+     * 密码哈希异步任务失败时的响应，线程池已满返回429
+     */
+    private ResponseEntity<?> hashingFailed(String action, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof PasswordHashingService.BusyException) {
+            return ResponseEntity.status(429).body(cause.getMessage());
+        }
+        System.out.println(action + ": " + cause.getMessage());
+        return ResponseEntity.status(500).body(action + ": " + cause.getMessage());
     }
 
     /**
@@ -94,17 +147,15 @@ public class UserController {
     public ResponseEntity<?> getUserInfo(HttpServletRequest request) {
         System.out.println("=== 开始处理获取用户信息请求 ===");
         
-        String authHeader = request.getHeader("Authorization");
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            System.out.println("错误: Authorization头缺失或格式错误");
+        // Token已由JwtAuthenticationFilter验证并解析
+        JwtUtil.TokenClaims claims = JwtAuthenticationFilter.getClaims(request);
+        if (claims == null) {
+            System.out.println("错误: 未登录或token无效");
             return ResponseEntity.status(401).body("未登录或token缺失");
         }
         
-        String token = authHeader.replace("Bearer ", "");
-        System.out.println("获取到token: " + token.substring(0, Math.min(20, token.length())) + "...");
-        
         // 优先使用用户ID查找用户，兼容旧版本token
-        Long userId = JwtUtil.getUserIdFromToken(token);
+        Long userId = claims.getUserId();
         Optional<User> userOpt;
         
         if (userId != null) {
@@ -113,7 +164,7 @@ public class UserController {
             userOpt = userRepository.findById(userId);
         } else {
             // 旧版本token，使用用户名查找
-            String username = JwtUtil.getUsernameFromToken(token);
+            String username = claims.getUsername();
             System.out.println("使用用户名查找用户: " + username);
             userOpt = userRepository.findByUsername(username);
         }
@@ -133,7 +184,7 @@ public class UserController {
      * 更新头像接口
      */
     @PostMapping({"/avatar", "/updateAvatar"})
-    public ResponseEntity<?> updateAvatar(@RequestBody Map<String, String> body, HttpServletRequest request) {
+    public ResponseEntity<?> updateAvatar(@RequestBody Map<String, String> body, @LoginUser CurrentUser currentUser) {
         System.out.println("=== 开始处理头像更新请求 ===");
         
         String avatar = body.get("avatar");
@@ -142,42 +193,19 @@ public class UserController {
             return ResponseEntity.badRequest().body("头像数据不能为空");
         }
         
-        String authHeader = request.getHeader("Authorization");
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            System.out.println("错误: Authorization头缺失或格式错误");
+        // 当前用户快照来自缓存，只更新头像列，不加载整行
+        if (currentUser == null) {
+            System.out.println("错误: 未登录、token无效或用户不存在");
             return ResponseEntity.status(401).body("未登录或token缺失");
         }
         
-        String token = authHeader.replace("Bearer ", "");
-        System.out.println("获取到token: " + token.substring(0, Math.min(20, token.length())) + "...");
-        
-        // 优先使用用户ID查找用户，兼容旧版本token
-        Long userId = JwtUtil.getUserIdFromToken(token);
-        Optional<User> userOpt;
-        
-        if (userId != null) {
-            // 新版本token，使用用户ID查找
-            System.out.println("使用用户ID查找用户: " + userId);
-            userOpt = userRepository.findById(userId);
-        } else {
-            // 旧版本token，使用用户名查找
-            String username = JwtUtil.getUsernameFromToken(token);
-            System.out.println("使用用户名查找用户: " + username);
-            userOpt = userRepository.findByUsername(username);
-        }
-        
-        if (userOpt.isPresent()) {
-            User user = userOpt.get();
-            System.out.println("找到用户，ID: " + user.getId() + ", 用户名: " + user.getUsername());
-            user.setAvatar(avatar);
-            userRepository.save(user);
-            System.out.println("头像更新成功");
-            System.out.println("=== 头像更新完成 ===");
-            return ResponseEntity.ok("头像更新成功");
-        } else {
-            System.out.println("错误: 用户不存在");
-            return ResponseEntity.badRequest().body("用户不存在");
-        }
+        System.out.println("当前用户，ID: " + currentUser.getId() + ", 用户名: " + currentUser.getUsername());
+        String storedAvatar = storeAvatar(avatar);
+        userRepository.updateAvatar(currentUser.getId(), storedAvatar);
+        publishedFeedService.onAuthorChanged(currentUser.getId(), currentUser.getUsername(), storedAvatar);
+        System.out.println("头像更新成功");
+        System.out.println("=== 头像更新完成 ===");
+        return ResponseEntity.ok("头像更新成功");
     }
 
     /**
@@ -187,17 +215,15 @@ public class UserController {
     public ResponseEntity<?> updateUserInfo(@RequestBody UpdateUserRequest request, HttpServletRequest httpRequest) {
         System.out.println("=== 开始处理用户信息更新请求 ===");
         
-        String authHeader = httpRequest.getHeader("Authorization");
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            System.out.println("错误: Authorization头缺失或格式错误");
+        // Token已由JwtAuthenticationFilter验证并解析
+        JwtUtil.TokenClaims claims = JwtAuthenticationFilter.getClaims(httpRequest);
+        if (claims == null) {
+            System.out.println("错误: 未登录或token无效");
             return ResponseEntity.status(401).body("未登录或token缺失");
         }
         
-        String token = authHeader.replace("Bearer ", "");
-        System.out.println("获取到token: " + token.substring(0, Math.min(20, token.length())) + "...");
-        
         // 优先使用用户ID查找用户，兼容旧版本token
-        Long userId = JwtUtil.getUserIdFromToken(token);
+        Long userId = claims.getUserId();
         Optional<User> userOpt;
         String currentUsername = null;
         
@@ -210,7 +236,7 @@ public class UserController {
             }
         } else {
             // 旧版本token，使用用户名查找
-            currentUsername = JwtUtil.getUsernameFromToken(token);
+            currentUsername = claims.getUsername();
             System.out.println("使用用户名查找用户: " + currentUsername);
             userOpt = userRepository.findByUsername(currentUsername);
         }
@@ -271,11 +297,13 @@ public class UserController {
         // 更新头像
         if (request.getAvatar() != null) {
             System.out.println("更新头像");
-            user.setAvatar(request.getAvatar());
+            user.setAvatar(storeAvatar(request.getAvatar()));
         }
         
         try {
             userRepository.save(user);
+            currentUserService.invalidate(user.getId());
+            publishedFeedService.onAuthorChanged(user.getId(), user.getUsername(), user.getAvatar());
             System.out.println("用户信息保存成功，最终用户名: " + user.getUsername());
             System.out.println("=== 用户信息更新完成 ===");
             return ResponseEntity.ok("用户信息更新成功");
@@ -289,115 +317,61 @@ public class UserController {
      * 修改密码接口
      */
     @PostMapping("/changePwd")
-    public ResponseEntity<?> changePassword(@RequestBody ChangePasswordRequest request, HttpServletRequest httpRequest) {
-        System.out.println("=== 开始处理密码修改请求 ===");
-        System.out.println("请求参数 - 原密码长度: " + (request.getOldPwd() != null ? request.getOldPwd().length() : "null"));
-        System.out.println("请求参数 - 新密码长度: " + (request.getNewPwd() != null ? request.getNewPwd().length() : "null"));
-        
+    public CompletableFuture<ResponseEntity<?>> changePassword(@RequestBody ChangePasswordRequest request, HttpServletRequest httpRequest) {
         // 参数验证
         if (request.getOldPwd() == null || request.getOldPwd().trim().isEmpty()) {
-            System.out.println("错误: 原密码为空");
-            return ResponseEntity.badRequest().body("原密码不能为空");
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("原密码不能为空"));
         }
         
         if (request.getNewPwd() == null || request.getNewPwd().trim().isEmpty()) {
-            System.out.println("错误: 新密码为空");
-            return ResponseEntity.badRequest().body("新密码不能为空");
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("新密码不能为空"));
         }
         
-        String authHeader = httpRequest.getHeader("Authorization");
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            System.out.println("错误: Authorization头缺失或格式错误");
-            return ResponseEntity.status(401).body("未登录或token缺失");
+        // Token已由JwtAuthenticationFilter验证并解析
+        JwtUtil.TokenClaims claims = JwtAuthenticationFilter.getClaims(httpRequest);
+        if (claims == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(401).body("未登录或token缺失"));
         }
         
-        String token = authHeader.replace("Bearer ", "");
-        System.out.println("获取到token: " + token.substring(0, Math.min(20, token.length())) + "...");
-        
         // 优先使用用户ID查找用户，兼容旧版本token
-        Long userId = JwtUtil.getUserIdFromToken(token);
-        Optional<User> userOpt;
-        String currentUsername = null;
-        
-        if (userId != null) {
-            // 新版本token，使用用户ID查找
-            System.out.println("使用用户ID查找用户: " + userId);
-            userOpt = userRepository.findById(userId);
-            if (userOpt.isPresent()) {
-                currentUsername = userOpt.get().getUsername();
-                System.out.println("通过用户ID找到用户，用户名: " + currentUsername);
-            }
-        } else {
-            // 旧版本token，使用用户名查找
-            currentUsername = JwtUtil.getUsernameFromToken(token);
-            System.out.println("使用用户名查找用户: " + currentUsername);
-            userOpt = userRepository.findByUsername(currentUsername);
-        }
-        
-        if (!userOpt.isPresent()) {
-            System.out.println("错误: 用户不存在");
-            return ResponseEntity.badRequest().body("用户不存在");
+        Long userId = claims.getUserId();
+        Optional<User> userOpt = userId != null
+                ? userRepository.findById(userId)
+                : userRepository.findByUsername(claims.getUsername());
+        if (userOpt.isEmpty()) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("用户不存在"));
         }
         
         User user = userOpt.get();
-        System.out.println("找到用户，ID: " + user.getId() + ", 用户名: " + user.getUsername());
-        
-        // 检查数据库密码格式
-        String dbPassword = user.getPassword();
-        System.out.println("数据库中密码哈希完整长度: " + (dbPassword != null ? dbPassword.length() : "null"));
-        System.out.println("数据库中密码哈希前20位: " + (dbPassword != null ? dbPassword.substring(0, Math.min(20, dbPassword.length())) + "..." : "null"));
-        
         // 验证数据库密码是否为BCrypt格式
+        String dbPassword = user.getPassword();
         if (dbPassword == null || !dbPassword.startsWith("$2a$") || dbPassword.length() != 60) {
-            System.out.println("错误: 数据库密码格式异常，不是有效的BCrypt哈希");
-            System.out.println("数据库密码内容: [" + dbPassword + "]");
-            return ResponseEntity.status(500).body("数据库密码格式异常，请联系管理员");
-        }
-        
-        // 验证旧密码
-        System.out.println("=== 开始密码验证 ===");
-        System.out.println("前端传入的原密码: [" + request.getOldPwd() + "]");
-        System.out.println("数据库中存储的密码哈希: [" + dbPassword + "]");
-        
-        // 使用BCrypt验证密码
-        boolean passwordMatches = passwordEncoder.matches(request.getOldPwd(), dbPassword);
-        System.out.println("BCrypt验证结果: " + (passwordMatches ? "通过" : "失败"));
-        
-        // 如果验证失败，提供详细的调试信息
-        if (!passwordMatches) {
-            System.out.println("=== 密码验证失败调试信息 ===");
-            System.out.println("原密码是否为空: " + (request.getOldPwd() == null || request.getOldPwd().trim().isEmpty()));
-            System.out.println("数据库密码是否为空: " + (dbPassword == null || dbPassword.trim().isEmpty()));
-            System.out.println("原密码长度: " + request.getOldPwd().length());
-            System.out.println("数据库密码长度: " + dbPassword.length());
-            
-            // 尝试重新编码原密码进行对比
-            String testHash = passwordEncoder.encode(request.getOldPwd());
-            System.out.println("重新编码原密码的哈希: " + testHash.substring(0, Math.min(20, testHash.length())) + "...");
-            boolean testMatch = passwordEncoder.matches(request.getOldPwd(), testHash);
-            System.out.println("重新编码后的验证结果: " + (testMatch ? "通过" : "失败"));
-            
-            // 检查是否有特殊字符或编码问题
-            System.out.println("原密码字节长度: " + request.getOldPwd().getBytes().length);
-            System.out.println("原密码是否包含特殊字符: " + !request.getOldPwd().matches("^[a-zA-Z0-9!@#$%^&*()_+\\-=\\[\\]{};':\"\\\\|,.<>\\/?]*$"));
-            System.out.println("=== 调试信息结束 ===");
-            
-            return ResponseEntity.badRequest().body("原密码错误");
+            System.out.println("用户 " + user.getId() + " 的密码哈希格式异常，不是有效的BCrypt哈希");
+            return CompletableFuture.completedFuture(ResponseEntity.status(500).body("数据库密码格式异常，请联系管理员"));
         }
         
-        // 更新新密码
-        System.out.println("原密码验证通过，开始更新新密码...");
-        String newPasswordHash = passwordEncoder.encode(request.getNewPwd());
-        user.setPassword(newPasswordHash);
-        
+        // 原密码校验和新密码哈希在哈希线程池中完成，保存切回应用任务线程池
+        return passwordHashingService.change(request.getOldPwd(), dbPassword, request.getNewPwd())
+                .<ResponseEntity<?>>thenApplyAsync(newPasswordHash -> {
+                    if (newPasswordHash == null) {
+                        return ResponseEntity.badRequest().body("原密码错误");
+                    }
+                    userRepository.updatePassword(user.getId(), newPasswordHash);
+                    System.out.println("用户 " + user.getId() + " 密码修改成功");
+                    return ResponseEntity.ok("密码修改成功");
+                }, applicationTaskExecutor)
+                .exceptionally(e -> hashingFailed("密码修改失败", e));
+    }
+
+    /**
+     * Base64头像转存到图片存储，保存失败时保留原始数据
+     */
+    private String storeAvatar(String avatar) {
         try {
-            userRepository.save(user);
-            System.out.println("密码修改成功，新密码哈希: " + newPasswordHash.substring(0, Math.min(20, newPasswordHash.length())) + "...");
-            System.out.println("=== 密码修改完成 ===");
-            return ResponseEntity.ok("密码修改成功");
-        } catch (Exception e) {
-            System.out.println("保存新密码时发生错误: " + e.getMessage());
-            return ResponseEntity.status(500).body("密码修改失败: " + e.getMessage());
+            return imageStorageService.externalize(avatar);
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("头像转存失败，保留原始数据: " + e.getMessage());
+            return avatar;
         }
     }
 
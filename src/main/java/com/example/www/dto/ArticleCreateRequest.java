@@ -14,6 +14,7 @@ public class ArticleCreateRequest {
     @Data
     public static class ArticleImageRequest {
         private String imageData; // Base64字符串
+        private String imageUrl;  // 已上传图片的地址
         private String imageName;
         private Integer sortOrder = 0;
     }
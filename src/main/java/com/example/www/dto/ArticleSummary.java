@@ -0,0 +1,86 @@
+package com.example.www.dto;
+
+import com.example.www.util.ImageUrlUtil;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 文章列表摘要，不包含正文、封面和图片数据
+ */
+@Data
+public class ArticleSummary {
+    /**
+     * 摘要截取的正文长度
+     */
+    public static final int EXCERPT_LENGTH = 200;
+
+    private Long id;
+    private String title;
+    private String excerpt;
+    private Long authorId;
+    private String authorName;
+    private String authorAvatar;
+    private String status;
+    private Integer viewCount;
+    private Integer likeCount;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime publishedAt;
+    private String thumbnailUrl;
+    private Boolean isLiked = false;
+
+    /**
+     * 供JPQL构造表达式使用
+     * @param coverUrl 封面为URL时的地址，为Base64（data:开头或超长）时为null
+     * @param hasCover 是否有封面
+     */
+    public ArticleSummary(Long id, String title, String excerpt, Long authorId, String status,
+                          Integer viewCount, Integer likeCount, LocalDateTime createdAt,
+                          LocalDateTime updatedAt, LocalDateTime publishedAt,
+                          String coverUrl, Boolean hasCover) {
+        this.id = id;
+        this.title = title;
+        this.excerpt = cleanExcerpt(excerpt);
+        this.authorId = authorId;
+        this.status = status;
+        this.viewCount = viewCount;
+        this.likeCount = likeCount;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.publishedAt = publishedAt;
+        if (coverUrl != null) {
+            // 本地存储的封面使用缩略图
+            this.thumbnailUrl = ImageUrlUtil.sized(coverUrl, ImageUrlUtil.THUMB);
+        } else if (Boolean.TRUE.equals(hasCover)) {
+            // Base64封面通过单独的接口按需加载
+            this.thumbnailUrl = "/api/article/" + id + "/cover";
+        }
+    }
+
+    /**
+     * 复制一份摘要，用于从缓存中返回可修改的副本
+     */
+    public ArticleSummary copy() {
+        ArticleSummary copy = new ArticleSummary(id, title, null, authorId, status, viewCount, likeCount,
+                createdAt, updatedAt, publishedAt, thumbnailUrl, null);
+        copy.excerpt = excerpt;
+        copy.authorName = authorName;
+        copy.authorAvatar = authorAvatar;
+        copy.isLiked = isLiked;
+        return copy;
+    }
+
+    /**
+     * 去掉图片占位符和常见Markdown标记
+     */
+    private static String cleanExcerpt(String text) {
+        if (text == null) {
+            return null;
+        }
+        return text.replaceAll("!\\[[^\\]]*\\]\\([^)]*\\)", "")
+                .replaceAll("[#>*`]", "")
+                .replaceAll("\\s+", " ")
+                .trim();
+    }
+}
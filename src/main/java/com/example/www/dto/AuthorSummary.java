@@ -0,0 +1,19 @@
+package com.example.www.dto;
+
+import lombok.Data;
+
+/**
+ * 作者信息投影，只包含列表展示需要的字段
+ */
+@Data
+public class AuthorSummary {
+    private Long id;
+    private String username;
+    private String avatar;
+
+    public AuthorSummary(Long id, String username, String avatar) {
+        this.id = id;
+        this.username = username;
+        this.avatar = avatar;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.www.dto;
+
+import lombok.Data;
+
+/**
+ * 当前登录用户快照，只包含权限判断需要的字段，不包含头像和密码
+ */
+@Data
+public class CurrentUser {
+    private Long id;
+    private String username;
+    private String userType;
+
+    public CurrentUser(Long id, String username, String userType) {
+        this.id = id;
+        this.username = username;
+        this.userType = userType;
+    }
+
+    /**
+     * 是否为管理员
+     */
+    public boolean isAdmin() {
+        return "ADMIN".equals(userType);
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.www.dto;
+
+import lombok.Data;
+import java.util.List;
+
+/**
+ * 游标分页响应，nextCursor为null表示没有更多数据
+ */
+@Data
+public class CursorResponse<T> {
+    private Integer size;
+    private String nextCursor;
+    private List<T> records;
+
+    public CursorResponse(Integer size, String nextCursor, List<T> records) {
+        this.size = size;
+        this.nextCursor = nextCursor;
+        this.records = records;
+    }
+}
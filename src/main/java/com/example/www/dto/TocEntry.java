@@ -0,0 +1,33 @@
+package com.example.www.dto;
+
+import lombok.Data;
+
+/**
+ * 文章目录项
+ */
+@Data
+public class TocEntry {
+    /**
+     * 标题级别，1-6
+     */
+    private Integer level;
+
+    /**
+     * 标题文字
+     */
+    private String text;
+
+    /**
+     * 渲染后HTML中标题的id，用于页内跳转
+     */
+    private String id;
+
+    public TocEntry() {
+    }
+
+    public TocEntry(Integer level, String text, String id) {
+        this.level = level;
+        this.text = text;
+        this.id = id;
+    }
+}
@@ -2,7 +2,9 @@ package com.example.www.entity;
 
 import lombok.Data;
 import jakarta.persistence.*;
+import com.example.www.dto.TocEntry;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -11,7 +13,13 @@ import java.util.List;
  */
 @Data
 @Entity
-@Table(name = "article")
+@Table(name = "article", indexes = {
+    @Index(name = "idx_article_status_published", columnList = "status, published_at, id"),
+    @Index(name = "idx_article_status_created", columnList = "status, created_at, id"),
+    @Index(name = "idx_article_author_status_created", columnList = "author_id, status, created_at, id"),
+    @Index(name = "idx_article_author_created", columnList = "author_id, created_at, id"),
+    @Index(name = "idx_article_created", columnList = "created_at, id")
+})
 public class Article {
     
     /**
@@ -52,15 +60,15 @@ public class Article {
     private String status = "DRAFT";
     
     /**
-     * 浏览次数
+     * 浏览次数（非持久化字段，保存在article_stats表）
      */
-    @Column(nullable = false)
+    @Transient
     private Integer viewCount = 0;
     
     /**
-     * 点赞次数
+     * 点赞次数（非持久化字段，保存在article_stats表）
      */
-    @Column(nullable = false)
+    @Transient
     private Integer likeCount = 0;
     
     /**
@@ -125,19 +133,51 @@ public class Article {
     private Boolean isLiked = false;
     
     /**
-     * 在保存前设置创建时间和更新时间
+     * 预渲染的HTML（非持久化字段，详情接口带html=true时返回）
+     */
+    @Transient
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String contentHtml;
+    
+    /**
+     * 目录（非持久化字段，详情接口带html=true时返回）
+     */
+    @Transient
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<TocEntry> toc;
+    
+    /**
+     * 字数（非持久化字段，详情接口带html=true时返回）
+     */
+    @Transient
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer wordCount;
+    
+    /**
+     * 在保存前设置创建时间和更新时间，直接以已发布状态保存时补上发布时间
      */
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
+        fillPublishedAt();
     }
     
     /**
-     * 在更新前设置更新时间
+     * 在更新前设置更新时间，改为已发布状态时补上发布时间
      */
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
+        fillPublishedAt();
+    }
+
+    /**
+     * 已发布文章按发布时间分页，发布时间不能为空
+     */
+    private void fillPublishedAt() {
+        if ("APPROVED".equals(status) && publishedAt == null) {
+            publishedAt = updatedAt;
+        }
     }
 } 
\ No newline at end of file
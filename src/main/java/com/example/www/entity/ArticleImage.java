@@ -2,6 +2,7 @@ package com.example.www.entity;
 
 import lombok.Data;
 import jakarta.persistence.*;
+import com.example.www.util.ImageUrlUtil;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.time.LocalDateTime;
 
@@ -10,11 +11,19 @@ import java.time.LocalDateTime;
  */
 @Data
 @Entity
-@Table(name = "article_image")
+@Table(name = "article_image", indexes = {
+    @Index(name = "idx_article_image_article_sort", columnList = "article_id, sort_order")
+})
 public class ArticleImage {
     
+    /**
+     * 使用表生成器每次预分配50个ID，IDENTITY主键会使Hibernate无法批量插入
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "article_image_id")
+    @TableGenerator(name = "article_image_id", table = "id_generator",
+            pkColumnName = "sequence_name", valueColumnName = "next_val",
+            pkColumnValue = "article_image", allocationSize = 50)
     private Long id;
 
     /**
@@ -55,6 +64,13 @@ public class ArticleImage {
     @Column(nullable = false)
     private LocalDateTime createdAt;
 
+    /**
+     * 正文中显示用的中等尺寸图片地址，外链图片返回原地址
+     */
+    public String getMediumUrl() {
+        return ImageUrlUtil.sized(imageUrl, ImageUrlUtil.MEDIUM);
+    }
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
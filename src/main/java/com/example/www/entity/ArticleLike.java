@@ -10,7 +10,11 @@ import java.time.LocalDateTime;
  */
 @Data
 @Entity
-@Table(name = "article_like")
+@Table(name = "article_like", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_article_like_article_user", columnNames = {"article_id", "user_id"})
+}, indexes = {
+    @Index(name = "idx_article_like_user_article", columnList = "user_id, article_id")
+})
 public class ArticleLike {
     
     @Id
@@ -0,0 +1,56 @@
+package com.example.www.entity;
+
+import lombok.Data;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 文章预渲染结果实体类，对应数据库中的article_render表
+ */
+@Data
+@Entity
+@Table(name = "article_render")
+public class ArticleRender {
+
+    /**
+     * 文章ID，同时作为主键
+     */
+    @Id
+    private Long articleId;
+
+    /**
+     * 渲染时正文的SHA-256，与当前正文不一致时需要重新渲染
+     */
+    @Column(nullable = false, length = 64)
+    private String sourceHash;
+
+    /**
+     * 渲染后的HTML（已转义原始HTML并过滤危险链接）
+     */
+    @Column(columnDefinition = "LONGTEXT")
+    private String contentHtml;
+
+    /**
+     * 目录，JSON数组
+     */
+    @Column(columnDefinition = "TEXT")
+    private String toc;
+
+    /**
+     * 纯文本摘要
+     */
+    @Column(length = 500)
+    private String excerpt;
+
+    /**
+     * 字数，中文按字计算，其他语言按词计算
+     */
+    @Column(nullable = false)
+    private Integer wordCount = 0;
+
+    /**
+     * 渲染时间
+     */
+    @Column(nullable = false)
+    private LocalDateTime renderedAt;
+}
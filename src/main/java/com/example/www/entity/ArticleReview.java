@@ -10,7 +10,10 @@ import java.time.LocalDateTime;
  */
 @Data
 @Entity
-@Table(name = "article_review")
+@Table(name = "article_review", indexes = {
+    @Index(name = "idx_article_review_article_created", columnList = "article_id, created_at"),
+    @Index(name = "idx_article_review_reviewer_created", columnList = "reviewer_id, created_at")
+})
 public class ArticleReview {
     
     @Id
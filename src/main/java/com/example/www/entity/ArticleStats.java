@@ -0,0 +1,32 @@
+package com.example.www.entity;
+
+import lombok.Data;
+import jakarta.persistence.*;
+
+/**
+ * 文章计数实体类，对应数据库中的article_stats表。
+ * 浏览次数和点赞数单独成表，频繁的计数更新不会锁住和改写包含正文的article行
+ */
+@Data
+@Entity
+@Table(name = "article_stats")
+public class ArticleStats {
+
+    /**
+     * 文章ID，同时作为主键
+     */
+    @Id
+    private Long articleId;
+
+    /**
+     * 浏览次数
+     */
+    @Column(nullable = false)
+    private Integer viewCount = 0;
+
+    /**
+     * 点赞次数
+     */
+    @Column(nullable = false)
+    private Integer likeCount = 0;
+}
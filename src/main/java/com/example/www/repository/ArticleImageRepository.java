@@ -2,7 +2,11 @@ package com.example.www.repository;
 
 import com.example.www.entity.ArticleImage;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -15,7 +19,22 @@ public interface ArticleImageRepository extends JpaRepository<ArticleImage, Long
     List<ArticleImage> findByArticleOrderBySortOrderAsc(com.example.www.entity.Article article);
     
     /**
-     * 根据文章删除图片
+     * 查找仍以Base64保存图片数据的图片ID
      */
-    void deleteByArticle(com.example.www.entity.Article article);
-} 
\ No newline at end of file
+    @Query("SELECT i.id FROM ArticleImage i WHERE i.imageData IS NOT NULL ORDER BY i.id")
+    List<Long> findIdsWithImageData();
+
+    /**
+     * 只查询图片的Base64数据
+     */
+    @Query("SELECT i.imageData FROM ArticleImage i WHERE i.id = :id")
+    String findImageDataById(@Param("id") Long id);
+
+    /**
+     * 将图片数据替换为图片地址
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE ArticleImage i SET i.imageUrl = :imageUrl, i.imageData = NULL WHERE i.id = :id")
+    int replaceImageDataWithUrl(@Param("id") Long id, @Param("imageUrl") String imageUrl);
+}
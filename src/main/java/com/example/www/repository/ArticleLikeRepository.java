@@ -2,19 +2,17 @@ package com.example.www.repository;
 
 import com.example.www.entity.ArticleLike;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
-import java.util.Optional;
 
 @Repository
 public interface ArticleLikeRepository extends JpaRepository<ArticleLike, Long> {
     
-    /**
-     * 根据文章和用户查找点赞记录
-     */
-    Optional<ArticleLike> findByArticleAndUser(com.example.www.entity.Article article, com.example.www.entity.User user);
-    
     /**
      * 根据文章查找所有点赞记录
      */
@@ -26,12 +24,26 @@ public interface ArticleLikeRepository extends JpaRepository<ArticleLike, Long>
     List<ArticleLike> findByUser(com.example.www.entity.User user);
     
     /**
-     * 检查用户是否已点赞文章
+     * 插入点赞记录，依赖 (article_id, user_id) 唯一约束去重。
+     * 文章不存在时不插入，返回0；已点赞时违反唯一约束抛出DataIntegrityViolationException
      */
-    boolean existsByArticleAndUser(com.example.www.entity.Article article, com.example.www.entity.User user);
-    
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO article_like (article_id, user_id, created_at) "
+            + "SELECT a.id, :userId, NOW() FROM article a WHERE a.id = :articleId", nativeQuery = true)
+    int insertLike(@Param("articleId") Long articleId, @Param("userId") Long userId);
+
+    /**
+     * 根据文章ID和用户ID删除点赞记录
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ArticleLike l WHERE l.article.id = :articleId AND l.user.id = :userId")
+    int deleteByArticleIdAndUserId(@Param("articleId") Long articleId, @Param("userId") Long userId);
+
     /**
-     * 根据文章和用户删除点赞记录
+     * 查询用户点赞过的文章ID
      */
-    void deleteByArticleAndUser(com.example.www.entity.Article article, com.example.www.entity.User user);
-} 
\ No newline at end of file
+    @Query("SELECT l.article.id FROM ArticleLike l WHERE l.user.id = :userId")
+    List<Long> findArticleIdsByUserId(@Param("userId") Long userId);
+}
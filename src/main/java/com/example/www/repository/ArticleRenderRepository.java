@@ -0,0 +1,24 @@
+package com.example.www.repository;
+
+import com.example.www.entity.ArticleRender;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 文章预渲染结果仓库接口
+ */
+@Repository
+public interface ArticleRenderRepository extends JpaRepository<ArticleRender, Long> {
+
+    /**
+     * 删除图片所属文章的渲染结果
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ArticleRender r WHERE r.articleId IN (SELECT i.article.id FROM ArticleImage i WHERE i.id = :imageId)")
+    int deleteByImageId(@Param("imageId") Long imageId);
+}
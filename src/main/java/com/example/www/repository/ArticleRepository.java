@@ -1,71 +1,142 @@
 package com.example.www.repository;
 
+import com.example.www.dto.ArticleSummary;
 import com.example.www.entity.Article;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ArticleRepository extends JpaRepository<Article, Long> {
-    
+
     /**
-     * 根据作者ID查找文章
+     * 列表摘要查询的公共部分，正文只截取摘要长度，封面只在为URL时返回
      */
-    Page<Article> findByAuthorId(Long authorId, Pageable pageable);
+    String SUMMARY_SELECT = "SELECT new com.example.www.dto.ArticleSummary("
+            + "a.id, a.title, COALESCE(r.excerpt, SUBSTRING(a.content, 1, " + ArticleSummary.EXCERPT_LENGTH + ")), a.authorId, a.status, "
+            + "COALESCE(s.viewCount, 0), COALESCE(s.likeCount, 0), a.createdAt, a.updatedAt, a.publishedAt, "
+            + "CASE WHEN a.coverImage NOT LIKE 'data:%' AND LENGTH(a.coverImage) <= 500 THEN a.coverImage ELSE NULL END, "
+            + "CASE WHEN a.coverImage IS NULL THEN false ELSE true END) "
+            + "FROM Article a LEFT JOIN ArticleStats s ON s.articleId = a.id "
+            + "LEFT JOIN ArticleRender r ON r.articleId = a.id";
     
     /**
-     * 根据状态查找文章
+     * 查询文章摘要列表
      */
-    Page<Article> findByStatus(String status, Pageable pageable);
-    
+    @Query(value = SUMMARY_SELECT,
+           countQuery = "SELECT COUNT(a) FROM Article a")
+    Page<ArticleSummary> findSummaries(Pageable pageable);
+
     /**
-     * 根据作者ID和状态查找文章
+     * 根据状态查询文章摘要
      */
-    Page<Article> findByAuthorIdAndStatus(Long authorId, String status, Pageable pageable);
-    
+    @Query(value = SUMMARY_SELECT + " WHERE a.status = :status",
+           countQuery = "SELECT COUNT(a) FROM Article a WHERE a.status = :status")
+    Page<ArticleSummary> findSummariesByStatus(@Param("status") String status, Pageable pageable);
+
     /**
-     * 根据标题或内容模糊搜索
+     * 根据作者ID查询文章摘要
      */
-    @Query("SELECT a FROM Article a WHERE a.title LIKE %:keyword% OR a.content LIKE %:keyword%")
-    Page<Article> findByKeyword(@Param("keyword") String keyword, Pageable pageable);
-    
+    @Query(value = SUMMARY_SELECT + " WHERE a.authorId = :authorId",
+           countQuery = "SELECT COUNT(a) FROM Article a WHERE a.authorId = :authorId")
+    Page<ArticleSummary> findSummariesByAuthorId(@Param("authorId") Long authorId, Pageable pageable);
+
     /**
-     * 根据状态和关键词搜索
+     * 根据作者ID和状态查询文章摘要
      */
-    @Query("SELECT a FROM Article a WHERE a.status = :status AND (a.title LIKE %:keyword% OR a.content LIKE %:keyword%)")
-    Page<Article> findByStatusAndKeyword(@Param("status") String status, @Param("keyword") String keyword, Pageable pageable);
-    
+    @Query(value = SUMMARY_SELECT + " WHERE a.authorId = :authorId AND a.status = :status",
+           countQuery = "SELECT COUNT(a) FROM Article a WHERE a.authorId = :authorId AND a.status = :status")
+    Page<ArticleSummary> findSummariesByAuthorIdAndStatus(@Param("authorId") Long authorId, @Param("status") String status, Pageable pageable);
+
     /**
-     * 根据作者ID和关键词搜索
+     * 根据标题或内容模糊搜索文章摘要
      */
-    @Query("SELECT a FROM Article a WHERE a.authorId = :authorId AND (a.title LIKE %:keyword% OR a.content LIKE %:keyword%)")
-    Page<Article> findByAuthorIdAndKeyword(@Param("authorId") Long authorId, @Param("keyword") String keyword, Pageable pageable);
-    
+    @Query(value = SUMMARY_SELECT + " WHERE a.title LIKE %:keyword% OR a.content LIKE %:keyword%",
+           countQuery = "SELECT COUNT(a) FROM Article a WHERE a.title LIKE %:keyword% OR a.content LIKE %:keyword%")
+    Page<ArticleSummary> findSummariesByKeyword(@Param("keyword") String keyword, Pageable pageable);
+
     /**
-     * 查找已发布的文章（用于公开访问）
+     * 根据状态和关键词搜索文章摘要
      */
-    Page<Article> findByStatusOrderByPublishedAtDesc(String status, Pageable pageable);
-    
+    @Query(value = SUMMARY_SELECT + " WHERE a.status = :status AND (a.title LIKE %:keyword% OR a.content LIKE %:keyword%)",
+           countQuery = "SELECT COUNT(a) FROM Article a WHERE a.status = :status AND (a.title LIKE %:keyword% OR a.content LIKE %:keyword%)")
+    Page<ArticleSummary> findSummariesByStatusAndKeyword(@Param("status") String status, @Param("keyword") String keyword, Pageable pageable);
+
     /**
-     * 增加浏览次数
+     * 根据作者ID和关键词搜索文章摘要
      */
-    @Query("UPDATE Article a SET a.viewCount = a.viewCount + 1 WHERE a.id = :id")
-    void incrementViewCount(@Param("id") Long id);
-    
+    @Query(value = SUMMARY_SELECT + " WHERE a.authorId = :authorId AND (a.title LIKE %:keyword% OR a.content LIKE %:keyword%)",
+           countQuery = "SELECT COUNT(a) FROM Article a WHERE a.authorId = :authorId AND (a.title LIKE %:keyword% OR a.content LIKE %:keyword%)")
+    Page<ArticleSummary> findSummariesByAuthorIdAndKeyword(@Param("authorId") Long authorId, @Param("keyword") String keyword, Pageable pageable);
+
     /**
-     * 增加点赞次数
+     * 按创建时间倒序的游标分页查询，不执行count查询
      */
-    @Query("UPDATE Article a SET a.likeCount = a.likeCount + 1 WHERE a.id = :id")
-    void incrementLikeCount(@Param("id") Long id);
-    
+    @Query(SUMMARY_SELECT + " WHERE (:status IS NULL OR a.status = :status)"
+            + " AND (:authorId IS NULL OR a.authorId = :authorId)"
+            + " AND (a.createdAt < :createdAt OR (a.createdAt = :createdAt AND a.id < :id))"
+            + " ORDER BY a.createdAt DESC, a.id DESC")
+    List<ArticleSummary> findSummariesCreatedBefore(@Param("status") String status, @Param("authorId") Long authorId,
+                                                    @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                                    Pageable pageable);
+
+    /**
+     * 按发布时间倒序的游标分页查询，用于已发布文章。没有发布时间的文章不参与排序，
+     * 显式排除，避免游标中出现空时间
+     */
+    @Query(SUMMARY_SELECT + " WHERE a.status = :status"
+            + " AND (:authorId IS NULL OR a.authorId = :authorId)"
+            + " AND a.publishedAt IS NOT NULL"
+            + " AND (a.publishedAt < :publishedAt OR (a.publishedAt = :publishedAt AND a.id < :id))"
+            + " ORDER BY a.publishedAt DESC, a.id DESC")
+    List<ArticleSummary> findSummariesPublishedBefore(@Param("status") String status, @Param("authorId") Long authorId,
+                                                      @Param("publishedAt") LocalDateTime publishedAt, @Param("id") Long id,
+                                                      Pageable pageable);
+
+    /**
+     * 查询单篇文章摘要
+     */
+    @Query(SUMMARY_SELECT + " WHERE a.id = :id")
+    Optional<ArticleSummary> findSummaryById(@Param("id") Long id);
+
+    /**
+     * 统计指定状态的文章数
+     */
+    long countByStatus(String status);
+
+    /**
+     * 根据ID集合查询文章摘要，用于全文检索结果
+     */
+    @Query(SUMMARY_SELECT + " WHERE a.id IN :ids")
+    List<ArticleSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 只查询文章封面数据
+     */
+    @Query("SELECT a.coverImage FROM Article a WHERE a.id = :id")
+    Optional<String> findCoverImageById(@Param("id") Long id);
+
+    /**
+     * 查找封面仍为Base64数据的文章ID
+     */
+    @Query("SELECT a.id FROM Article a WHERE a.coverImage LIKE 'data:%' ORDER BY a.id")
+    List<Long> findIdsWithDataUrlCover();
+
     /**
-     * 减少点赞次数
+     * 更新封面地址，不触发实体的更新时间
      */
-    @Query("UPDATE Article a SET a.likeCount = a.likeCount - 1 WHERE a.id = :id AND a.likeCount > 0")
-    void decrementLikeCount(@Param("id") Long id);
-} 
\ No newline at end of file
+    @Transactional
+    @Modifying
+    @Query("UPDATE Article a SET a.coverImage = :coverImage WHERE a.id = :id")
+    int updateCoverImage(@Param("id") Long id, @Param("coverImage") String coverImage);
+}
@@ -0,0 +1,25 @@
+package com.example.www.repository;
+
+import com.example.www.entity.ArticleStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 文章计数仓库接口，计数更新由ArticleCounterService批量写回
+ */
+@Repository
+public interface ArticleStatsRepository extends JpaRepository<ArticleStats, Long> {
+
+    /**
+     * 新建文章时创建计数行，已存在时忽略
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO article_stats (article_id, view_count, like_count) VALUES (:articleId, 0, 0)",
+           nativeQuery = true)
+    int insertIfMissing(@Param("articleId") Long articleId);
+}
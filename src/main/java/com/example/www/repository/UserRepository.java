@@ -1,7 +1,15 @@
 package com.example.www.repository;
 
+import com.example.www.dto.AuthorSummary;
+import com.example.www.dto.CurrentUser;
 import com.example.www.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -28,4 +36,61 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @return 用户对象的Optional包装
      */
     Optional<User> findByEmail(String email);
-} 
\ No newline at end of file
+
+    /**
+     * 按用户ID查询当前用户快照，不加载头像和密码
+     */
+    @Query("SELECT new com.example.www.dto.CurrentUser(u.id, u.username, u.userType) FROM User u WHERE u.id = :id")
+    Optional<CurrentUser> findCurrentUserById(@Param("id") Long id);
+
+    /**
+     * 按用户名查询当前用户快照，用于旧版本Token
+     */
+    @Query("SELECT new com.example.www.dto.CurrentUser(u.id, u.username, u.userType) FROM User u WHERE u.username = :username")
+    Optional<CurrentUser> findCurrentUserByUsername(@Param("username") String username);
+
+    /**
+     * 批量查询作者信息，只加载id、用户名和头像
+     * @param ids 用户ID集合
+     * @return 作者信息列表
+     */
+    @Query("SELECT new com.example.www.dto.AuthorSummary(u.id, u.username, u.avatar) FROM User u WHERE u.id IN :ids")
+    List<AuthorSummary> findAuthorSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 查找头像仍为Base64数据的用户ID
+     * @return 用户ID列表
+     */
+    @Query("SELECT u.id FROM User u WHERE u.avatar LIKE 'data:%' ORDER BY u.id")
+    List<Long> findIdsWithDataUrlAvatar();
+
+    /**
+     * 只查询用户头像
+     * @param id 用户ID
+     * @return 头像数据
+     */
+    @Query("SELECT u.avatar FROM User u WHERE u.id = :id")
+    String findAvatarById(@Param("id") Long id);
+
+    /**
+     * 更新用户头像
+     * @param id 用户ID
+     * @param avatar 头像地址
+     * @return 更新行数
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.avatar = :avatar WHERE u.id = :id")
+    int updateAvatar(@Param("id") Long id, @Param("avatar") String avatar);
+
+    /**
+     * 只更新密码哈希，登录时升级哈希强度使用
+     * @param id 用户ID
+     * @param password 新的密码哈希
+     * @return 更新行数
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.id = :id")
+    int updatePassword(@Param("id") Long id, @Param("password") String password);
+}
@@ -0,0 +1,114 @@
+package com.example.www.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * AI对话本地限流，按估算的token数扣减令牌桶。
+ * 每个用户（未登录时按IP）和每个模型各有一个桶，桶容量为每分钟的token数
+ */
+@Service
+public class AIRateLimiter {
+
+    @Value("${sparkai.rate-limit.user-tokens-per-minute:20000}")
+    private long userTokensPerMinute;
+
+    @Value("${sparkai.rate-limit.model-tokens-per-minute:200000}")
+    private long modelTokensPerMinute;
+
+    @Value("${sparkai.rate-limit.max-users:10000}")
+    private int maxUsers;
+
+    /**
+     * 用户标识 -> 令牌桶，按访问顺序淘汰
+     */
+    private final LinkedHashMap<String, TokenBucket> userBuckets = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, TokenBucket> eldest) {
+            return size() > maxUsers;
+        }
+    };
+
+    private final ConcurrentHashMap<String, TokenBucket> modelBuckets = new ConcurrentHashMap<>();
+
+    /**
+     * 扣减用户的令牌
+     * @return 令牌不足时返回false
+     */
+    public boolean tryAcquireUser(String clientKey, int tokens) {
+        TokenBucket bucket;
+        synchronized (userBuckets) {
+            bucket = userBuckets.computeIfAbsent(clientKey, k -> new TokenBucket(userTokensPerMinute));
+        }
+        return bucket.tryConsume(tokens);
+    }
+
+    /**
+     * 归还用户的令牌，用于已扣减但因并发或模型限流未发出的请求
+     */
+    public void refundUser(String clientKey, int tokens) {
+        TokenBucket bucket;
+        synchronized (userBuckets) {
+            bucket = userBuckets.get(clientKey);
+        }
+        if (bucket != null) {
+            bucket.refund(tokens);
+        }
+    }
+
+    /**
+     * 扣减模型的令牌
+     * @return 令牌不足时返回false
+     */
+    public boolean tryAcquireModel(String model, int tokens) {
+        return modelBuckets.computeIfAbsent(model, k -> new TokenBucket(modelTokensPerMinute)).tryConsume(tokens);
+    }
+
+    /**
+     * 归还模型的令牌，用于已扣减但未发出的请求
+     */
+    public void refundModel(String model, int tokens) {
+        TokenBucket bucket = modelBuckets.get(model);
+        if (bucket != null) {
+            bucket.refund(tokens);
+        }
+    }
+
+    /**
+     * 令牌桶，容量为每分钟的token数，按时间连续补充
+     */
+    static class TokenBucket {
+        private final long capacity;
+        private final double refillPerMs;
+        private double available;
+        private long lastRefill;
+
+        TokenBucket(long tokensPerMinute) {
+            this.capacity = tokensPerMinute;
+            this.refillPerMs = tokensPerMinute / 60000.0;
+            this.available = tokensPerMinute;
+            this.lastRefill = System.currentTimeMillis();
+        }
+
+        synchronized boolean tryConsume(int tokens) {
+            long now = System.currentTimeMillis();
+            available = Math.min(capacity, available + (now - lastRefill) * refillPerMs);
+            lastRefill = now;
+            // 超过桶容量的请求在桶满时仍允许通过
+            double cost = Math.min(tokens, capacity);
+            if (available < cost) {
+                return false;
+            }
+            available -= cost;
+            return true;
+        }
+
+        synchronized void refund(int tokens) {
+            available = Math.min(capacity, available + Math.min(tokens, capacity));
+        }
+    }
+}
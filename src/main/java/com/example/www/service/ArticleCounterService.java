@@ -0,0 +1,155 @@
+package com.example.www.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 文章计数服务，浏览次数和点赞数先在内存中累加，由定时任务批量写回数据库
+ */
+@Service
+public class ArticleCounterService {
+
+    private static final Logger log = LoggerFactory.getLogger(ArticleCounterService.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PublishedFeedService publishedFeedService;
+
+    @Value("${article.counter.flush-batch-size:500}")
+    private int flushBatchSize;
+
+    /**
+     * 每篇文章待写回的浏览次数
+     */
+    private final ConcurrentHashMap<Long, Long> pendingViews = new ConcurrentHashMap<>();
+
+    /**
+     * 每篇文章待写回的点赞数变化
+     */
+    private final ConcurrentHashMap<Long, Long> pendingLikes = new ConcurrentHashMap<>();
+
+    /**
+     * 增加浏览次数
+     */
+    public void incrementView(Long articleId) {
+        add(pendingViews, articleId, 1);
+    }
+
+    /**
+     * 获取尚未写回数据库的浏览次数
+     */
+    public long getPendingViews(Long articleId) {
+        return pendingViews.getOrDefault(articleId, 0L);
+    }
+
+    /**
+     * 调整点赞数，delta为正表示点赞，为负表示取消点赞
+     */
+    public void adjustLikes(Long articleId, long delta) {
+        add(pendingLikes, articleId, delta);
+    }
+
+    /**
+     * 获取尚未写回数据库的点赞数变化
+     */
+    public long getPendingLikes(Long articleId) {
+        return pendingLikes.getOrDefault(articleId, 0L);
+    }
+
+    /**
+     * 定时将累计的浏览次数和点赞数写回数据库
+     */
+    @Scheduled(fixedDelayString = "${article.counter.flush-interval-ms:5000}")
+    public void flush() {
+        flush("view_count", pendingViews);
+        flush("like_count", pendingLikes);
+    }
+
+    /**
+     * 应用关闭前写回所有未保存的计数
+     */
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * 累加增量，在merge内完成读改写，不会与drain的移除交错；累加为0时移除条目
+     */
+    private static void add(ConcurrentHashMap<Long, Long> counters, Long articleId, long delta) {
+        counters.merge(articleId, delta, (current, increment) -> {
+            long sum = current + increment;
+            return sum == 0 ? null : sum;
+        });
+    }
+
+    private void flush(String column, ConcurrentHashMap<Long, Long> counters) {
+        Map<Long, Long> deltas = drain(counters);
+        if (deltas.isEmpty()) {
+            return;
+        }
+        try {
+            applyDeltas(column, deltas);
+            publishedFeedService.onCountersFlushed(column, deltas);
+        } catch (RuntimeException e) {
+            // 写回失败时把增量放回去，下次继续重试
+            log.warn("{} 写回失败，{} 篇文章的增量放回待写回队列，稍后重试", column, deltas.size(), e);
+            for (Map.Entry<Long, Long> entry : deltas.entrySet()) {
+                add(counters, entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * 取出所有待写回的增量。每个条目原子地移除并返回当前值，之后的累加会新建条目留到下次写回
+     */
+    private Map<Long, Long> drain(ConcurrentHashMap<Long, Long> counters) {
+        Map<Long, Long> deltas = new HashMap<>();
+        for (Long articleId : counters.keySet()) {
+            Long delta = counters.remove(articleId);
+            if (delta != null && delta != 0) {
+                deltas.put(articleId, delta);
+            }
+        }
+        return deltas;
+    }
+
+    /**
+     * 使用 UPDATE ... CASE 语句批量更新计数列，计数不会小于0
+     */
+    private void applyDeltas(String column, Map<Long, Long> deltas) {
+        List<Map.Entry<Long, Long>> entries = new ArrayList<>(deltas.entrySet());
+        for (int from = 0; from < entries.size(); from += flushBatchSize) {
+            List<Map.Entry<Long, Long>> batch = entries.subList(from, Math.min(from + flushBatchSize, entries.size()));
+            StringBuilder sql = new StringBuilder("UPDATE article_stats SET ")
+                    .append(column).append(" = GREATEST(").append(column).append(" + CASE article_id");
+            List<Object> args = new ArrayList<>(batch.size() * 3);
+            for (Map.Entry<Long, Long> entry : batch) {
+                sql.append(" WHEN ? THEN ?");
+                args.add(entry.getKey());
+                args.add(entry.getValue());
+            }
+            sql.append(" ELSE 0 END, 0) WHERE article_id IN (");
+            for (int i = 0; i < batch.size(); i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+                args.add(batch.get(i).getKey());
+            }
+            sql.append(")");
+            jdbcTemplate.update(sql.toString(), args.toArray());
+        }
+    }
+}
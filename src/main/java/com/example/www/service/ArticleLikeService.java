@@ -1,5 +1,6 @@
 package com.example.www.service;
 
+import com.example.www.dto.ArticleSummary;
 import com.example.www.entity.Article;
 import com.example.www.entity.ArticleLike;
 import com.example.www.entity.User;
@@ -7,14 +8,16 @@ import com.example.www.repository.ArticleLikeRepository;
 import com.example.www.repository.ArticleRepository;
 import com.example.www.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Optional;
+import java.sql.SQLException;
 
 @Service
 public class ArticleLikeService {
     
+    private static final int DUPLICATE_KEY_ERROR = 1062;
+    
     @Autowired
     private ArticleLikeRepository articleLikeRepository;
     
@@ -24,65 +27,56 @@ public class ArticleLikeService {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private ArticleCounterService articleCounterService;
+    
+    @Autowired
+    private LikedArticleCache likedArticleCache;
+    
     /**
-     * 点赞文章
+     * 点赞文章。
+     * 依赖唯一约束完成去重，一条语句完成检查和插入；点赞数在内存中累计后批量写回
      */
-    @Transactional
     public void likeArticle(Long articleId, Long userId) {
-        // 获取文章和用户
-        Optional<Article> optionalArticle = articleRepository.findById(articleId);
-        if (!optionalArticle.isPresent()) {
-            throw new IllegalArgumentException("文章不存在");
+        int inserted;
+        try {
+            inserted = articleLikeRepository.insertLike(articleId, userId);
+        } catch (DataIntegrityViolationException e) {
+            // 只把唯一约束冲突视为重复点赞，外键等其他错误照常抛出
+            if (isDuplicateKey(e)) {
+                throw new IllegalArgumentException("已经点赞过此文章");
+            }
+            throw e;
         }
-        Article article = optionalArticle.get();
-        
-        Optional<User> optionalUser = userRepository.findById(userId);
-        if (!optionalUser.isPresent()) {
-            throw new IllegalArgumentException("用户不存在");
+        if (inserted == 0) {
+            throw new IllegalArgumentException("文章不存在");
         }
-        User user = optionalUser.get();
         
-        // 检查是否已经点赞
-        if (articleLikeRepository.existsByArticleAndUser(article, user)) {
-            throw new IllegalArgumentException("已经点赞过此文章");
+        // 更新文章点赞数和用户点赞缓存
+        articleCounterService.adjustLikes(articleId, 1);
+        likedArticleCache.onLiked(userId, articleId);
+    }
+    
+    /**
+     * 是否是唯一约束冲突（MySQL错误码1062）
+     */
+    private static boolean isDuplicateKey(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException && ((SQLException) cause).getErrorCode() == DUPLICATE_KEY_ERROR) {
+                return true;
+            }
         }
-        
-        // 创建点赞记录
-        ArticleLike like = new ArticleLike();
-        like.setArticle(article);
-        like.setUser(user);
-        articleLikeRepository.save(like);
-        
-        // 更新文章点赞数
-        article.setLikeCount(article.getLikeCount() + 1);
-        articleRepository.save(article);
+        return false;
     }
     
     /**
      * 取消点赞
      */
-    @Transactional
     public void unlikeArticle(Long articleId, Long userId) {
-        // 获取文章和用户
-        Optional<Article> optionalArticle = articleRepository.findById(articleId);
-        if (!optionalArticle.isPresent()) {
-            throw new IllegalArgumentException("文章不存在");
-        }
-        Article article = optionalArticle.get();
-        
-        Optional<User> optionalUser = userRepository.findById(userId);
-        if (!optionalUser.isPresent()) {
-            throw new IllegalArgumentException("用户不存在");
-        }
-        User user = optionalUser.get();
-        
-        // 删除点赞记录
-        articleLikeRepository.deleteByArticleAndUser(article, user);
-        
-        // 更新文章点赞数
-        if (article.getLikeCount() > 0) {
-            article.setLikeCount(article.getLikeCount() - 1);
-            articleRepository.save(article);
+        // 只有确实删除了点赞记录才减少点赞数
+        if (articleLikeRepository.deleteByArticleIdAndUserId(articleId, userId) > 0) {
+            articleCounterService.adjustLikes(articleId, -1);
+            likedArticleCache.onUnliked(userId, articleId);
         }
     }
     
@@ -90,38 +84,35 @@ public class ArticleLikeService {
      * 检查用户是否已点赞文章
      */
     public boolean isLiked(Long articleId, Long userId) {
-        Optional<Article> optionalArticle = articleRepository.findById(articleId);
-        if (!optionalArticle.isPresent()) {
-            return false;
+        return likedArticleCache.isLiked(userId, articleId);
+    }
+    
+    /**
+     * 标记一页文章中当前用户已点赞的文章
+     */
+    public void markLiked(java.util.List<ArticleSummary> summaries, Long userId) {
+        if (userId == null || summaries.isEmpty()) {
+            return;
         }
-        
-        Optional<User> optionalUser = userRepository.findById(userId);
-        if (!optionalUser.isPresent()) {
-            return false;
+        LikedArticleCache.LongSet liked = likedArticleCache.getLikedArticles(userId);
+        for (ArticleSummary summary : summaries) {
+            summary.setIsLiked(liked.contains(summary.getId()));
         }
-        
-        return articleLikeRepository.existsByArticleAndUser(optionalArticle.get(), optionalUser.get());
     }
     
     /**
-     * 获取文章的点赞用户列表
+     * 获取文章的点赞用户列表，使用引用代替加载整篇文章
      */
     public java.util.List<ArticleLike> getArticleLikes(Long articleId) {
-        Optional<Article> optionalArticle = articleRepository.findById(articleId);
-        if (!optionalArticle.isPresent()) {
-            return new java.util.ArrayList<>();
-        }
-        return articleLikeRepository.findByArticle(optionalArticle.get());
+        Article article = articleRepository.getReferenceById(articleId);
+        return articleLikeRepository.findByArticle(article);
     }
     
     /**
      * 获取用户的点赞文章列表
      */
     public java.util.List<ArticleLike> getUserLikes(Long userId) {
-        Optional<User> optionalUser = userRepository.findById(userId);
-        if (!optionalUser.isPresent()) {
-            return new java.util.ArrayList<>();
-        }
-        return articleLikeRepository.findByUser(optionalUser.get());
+        User user = userRepository.getReferenceById(userId);
+        return articleLikeRepository.findByUser(user);
     }
-} 
\ No newline at end of file
+}
@@ -1,12 +1,14 @@
 package com.example.www.service;
 
 import com.example.www.dto.ArticleReviewRequest;
+import com.example.www.dto.CurrentUser;
 import com.example.www.entity.Article;
 import com.example.www.entity.ArticleReview;
 import com.example.www.entity.User;
 import com.example.www.repository.ArticleRepository;
 import com.example.www.repository.ArticleReviewRepository;
 import com.example.www.repository.UserRepository;
+import com.example.www.util.TransactionUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -27,14 +29,22 @@ public class ArticleReviewService {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private ArticleSearchService articleSearchService;
+    
+    @Autowired
+    private PublishedFeedService publishedFeedService;
+    
+    @Autowired
+    private MarkdownRenderService markdownRenderService;
+    
     /**
      * 审核文章
      */
     @Transactional
-    public void reviewArticle(Long articleId, ArticleReviewRequest request, Long reviewerId) {
+    public void reviewArticle(Long articleId, ArticleReviewRequest request, CurrentUser reviewer) {
         // 验证审核员权限
-        Optional<User> reviewer = userRepository.findById(reviewerId);
-        if (reviewer.isEmpty() || !"ADMIN".equals(reviewer.get().getUserType())) {
+        if (reviewer == null || !reviewer.isAdmin()) {
             throw new IllegalArgumentException("无权限进行审核");
         }
         
@@ -66,11 +76,23 @@ public class ArticleReviewService {
         }
         
         articleRepository.save(article);
+        if ("APPROVED".equals(article.getStatus())) {
+            // 确保预渲染结果是最新的
+            markdownRenderService.render(article);
+        }
+        // 提交后再更新全文索引和首页缓存，事务回滚时内存状态保持不变
+        String newStatus = article.getStatus();
+        TransactionUtil.afterCommit(() -> {
+            articleSearchService.updateStatus(articleId, newStatus);
+            if ("APPROVED".equals(newStatus)) {
+                publishedFeedService.onArticleChanged(articleId, "PENDING");
+            }
+        });
         
         // 创建审核记录
         ArticleReview review = new ArticleReview();
         review.setArticle(article);
-        review.setReviewer(reviewer.get());
+        review.setReviewer(userRepository.getReferenceById(reviewer.getId()));
         review.setAction(request.getAction());
         review.setComment(request.getComment());
         
@@ -102,10 +124,10 @@ public class ArticleReviewService {
      * 获取审核员的审核记录
      */
     public List<ArticleReview> getReviewerHistory(Long reviewerId) {
-        Optional<User> optionalUser = userRepository.findById(reviewerId);
-        if (optionalUser.isEmpty()) {
+        if (!userRepository.existsById(reviewerId)) {
             return new java.util.ArrayList<>();
         }
-        return articleReviewRepository.findByReviewerOrderByCreatedAtDesc(optionalUser.get());
+        User reviewer = userRepository.getReferenceById(reviewerId);
+        return articleReviewRepository.findByReviewerOrderByCreatedAtDesc(reviewer);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,323 @@
+package com.example.www.service;
+
+import com.example.www.entity.Article;
+import com.example.www.repository.ArticleRepository;
+import com.example.www.util.BigramTokenizer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 文章全文检索服务，在内存中维护倒排索引并使用BM25排序。
+ * 启动后从数据库构建索引，文章创建、修改、删除和审核时增量更新。
+ * 索引构建完成前 {@link #isReady()} 返回false，调用方应回退到数据库查询。
+ * 构建期间的增量更新会被记录，构建时跳过或修正这些文章，避免旧数据覆盖新数据
+ */
+@Service
+public class ArticleSearchService {
+    // BM25参数
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    // 标题词重复索引的次数，提高标题命中的权重
+    private static final int TITLE_BOOST = 3;
+    private static final int REBUILD_PAGE_SIZE = 200;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 词 -> (文章ID -> 词频)
+     */
+    private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+
+    /**
+     * 文章ID -> 文章索引信息
+     */
+    private final Map<Long, IndexedDoc> docs = new HashMap<>();
+
+    /**
+     * 构建期间被重新索引或删除的文章ID，构建时跳过其数据库快照
+     */
+    private final Set<Long> replacedDuringRebuild = new HashSet<>();
+
+    /**
+     * 构建期间只修改了状态的文章：ID -> 最新状态，构建时覆盖快照中的状态
+     */
+    private final Map<Long, String> statusDuringRebuild = new HashMap<>();
+
+    private long totalLength;
+    private volatile boolean ready;
+
+    /**
+     * 应用启动完成后构建索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        int pageNumber = 0;
+        Page<Article> page;
+        do {
+            page = articleRepository.findAll(PageRequest.of(pageNumber++, REBUILD_PAGE_SIZE, Sort.by("id")));
+            for (Article article : page.getContent()) {
+                indexSnapshot(article);
+            }
+        } while (page.hasNext());
+
+        lock.writeLock().lock();
+        try {
+            replacedDuringRebuild.clear();
+            statusDuringRebuild.clear();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        System.out.println("文章索引构建完成，文章数: " + docs.size() + "，耗时: " + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    /**
+     * 索引是否已构建完成
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 添加或更新文章索引
+     */
+    public void index(Article article) {
+        IndexedDoc doc = analyze(article);
+        lock.writeLock().lock();
+        try {
+            if (!ready) {
+                replacedDuringRebuild.add(article.getId());
+                statusDuringRebuild.remove(article.getId());
+            }
+            put(article.getId(), doc);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 索引构建时读取的文章快照，构建开始后已有增量更新的文章以增量数据为准
+     */
+    private void indexSnapshot(Article article) {
+        IndexedDoc doc = analyze(article);
+        lock.writeLock().lock();
+        try {
+            if (replacedDuringRebuild.contains(article.getId())) {
+                return;
+            }
+            String status = statusDuringRebuild.get(article.getId());
+            if (status != null) {
+                doc.status = status;
+            }
+            put(article.getId(), doc);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除文章索引
+     */
+    public void remove(Long articleId) {
+        lock.writeLock().lock();
+        try {
+            if (!ready) {
+                replacedDuringRebuild.add(articleId);
+                statusDuringRebuild.remove(articleId);
+            }
+            removeInternal(articleId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 更新文章状态，用于提交审核和审核后只改状态的场景
+     */
+    public void updateStatus(Long articleId, String status) {
+        lock.writeLock().lock();
+        try {
+            if (!ready && !replacedDuringRebuild.contains(articleId)) {
+                statusDuringRebuild.put(articleId, status);
+            }
+            IndexedDoc doc = docs.get(articleId);
+            if (doc != null) {
+                doc.status = status;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 搜索文章，文章需包含全部查询词，按BM25得分降序
+     * @param keyword 关键词
+     * @param status 状态过滤，可为null
+     * @param authorId 作者过滤，可为null
+     * @param page 页码，从0开始
+     * @param size 每页数量
+     * @return 当前页的文章ID和命中总数
+     */
+    public SearchResult search(String keyword, String status, Long authorId, int page, int size) {
+        Set<String> terms = new LinkedHashSet<>(BigramTokenizer.tokenizeForQuery(keyword));
+        if (terms.isEmpty()) {
+            return new SearchResult(Collections.emptyList(), 0);
+        }
+
+        lock.readLock().lock();
+        try {
+            // 从最短的倒排表开始求交集
+            List<Map<Long, Integer>> lists = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                Map<Long, Integer> list = postings.get(term);
+                if (list == null) {
+                    return new SearchResult(Collections.emptyList(), 0);
+                }
+                lists.add(list);
+            }
+            lists.sort((x, y) -> Integer.compare(x.size(), y.size()));
+
+            int docCount = docs.size();
+            double avgLength = docCount > 0 ? (double) totalLength / docCount : 1;
+            List<ScoredDoc> hits = new ArrayList<>();
+            for (Long docId : lists.get(0).keySet()) {
+                IndexedDoc doc = docs.get(docId);
+                if (doc == null
+                        || (status != null && !status.equals(doc.status))
+                        || (authorId != null && !authorId.equals(doc.authorId))) {
+                    continue;
+                }
+                double score = 0;
+                boolean matchesAll = true;
+                for (Map<Long, Integer> list : lists) {
+                    Integer tf = list.get(docId);
+                    if (tf == null) {
+                        matchesAll = false;
+                        break;
+                    }
+                    double idf = Math.log(1 + (docCount - list.size() + 0.5) / (list.size() + 0.5));
+                    score += idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * doc.length / avgLength));
+                }
+                if (matchesAll) {
+                    hits.add(new ScoredDoc(docId, score));
+                }
+            }
+
+            hits.sort((x, y) -> y.score != x.score ? Double.compare(y.score, x.score) : Long.compare(y.id, x.id));
+            List<Long> ids = new ArrayList<>(size);
+            for (int i = page * size; i < hits.size() && ids.size() < size; i++) {
+                ids.add(hits.get(i).id);
+            }
+            return new SearchResult(ids, hits.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 切分文章标题和正文，统计词频，不需要持有锁
+     */
+    private IndexedDoc analyze(Article article) {
+        Map<String, Integer> termFreqs = new HashMap<>();
+        int length = 0;
+        for (String token : BigramTokenizer.tokenizeForIndex(article.getTitle())) {
+            termFreqs.merge(token, TITLE_BOOST, Integer::sum);
+            length += TITLE_BOOST;
+        }
+        for (String token : BigramTokenizer.tokenizeForIndex(article.getContent())) {
+            termFreqs.merge(token, 1, Integer::sum);
+            length++;
+        }
+        return new IndexedDoc(article.getStatus(), article.getAuthorId(), length, termFreqs);
+    }
+
+    private void put(Long articleId, IndexedDoc doc) {
+        removeInternal(articleId);
+        for (Map.Entry<String, Integer> entry : doc.termFreqs.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), t -> new HashMap<>()).put(articleId, entry.getValue());
+        }
+        docs.put(articleId, doc);
+        totalLength += doc.length;
+    }
+
+    private void removeInternal(Long articleId) {
+        IndexedDoc old = docs.remove(articleId);
+        if (old == null) {
+            return;
+        }
+        for (String term : old.termFreqs.keySet()) {
+            Map<Long, Integer> list = postings.get(term);
+            if (list != null) {
+                list.remove(articleId);
+                if (list.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalLength -= old.length;
+    }
+
+    /**
+     * 搜索结果
+     */
+    public static class SearchResult {
+        private final List<Long> ids;
+        private final long total;
+
+        public SearchResult(List<Long> ids, long total) {
+            this.ids = ids;
+            this.total = total;
+        }
+
+        public List<Long> getIds() {
+            return ids;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+    }
+
+    private static class IndexedDoc {
+        String status;
+        final Long authorId;
+        final int length;
+        final Map<String, Integer> termFreqs;
+
+        IndexedDoc(String status, Long authorId, int length, Map<String, Integer> termFreqs) {
+            this.status = status;
+            this.authorId = authorId;
+            this.length = length;
+            this.termFreqs = termFreqs;
+        }
+    }
+
+    private static class ScoredDoc {
+        final Long id;
+        final double score;
+
+        ScoredDoc(Long id, double score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+}
@@ -1,14 +1,29 @@
 package com.example.www.service;
 
+import com.example.www.dto.ArticleSummary;
+import com.example.www.dto.CursorResponse;
 import com.example.www.entity.Article;
 import com.example.www.entity.ArticleImage;
 import com.example.www.repository.ArticleImageRepository;
 import com.example.www.repository.ArticleRepository;
 import com.example.www.dto.ArticleUpdateRequest;
+import com.example.www.util.CursorUtil;
+import com.example.www.util.TransactionUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 @Service
 public class ArticleService {
@@ -16,30 +31,175 @@ public class ArticleService {
     private ArticleRepository articleRepository;
     @Autowired
     private ArticleImageRepository articleImageRepository;
+    @Autowired
+    private ImageStorageService imageStorageService;
+    @Autowired
+    private ArticleSearchService articleSearchService;
+    @Autowired
+    private PublishedFeedService publishedFeedService;
+    @Autowired
+    private MarkdownRenderService markdownRenderService;
 
-    @Transactional
-    public void updateArticleAndImages(Article article, ArticleUpdateRequest request) {
+    @Transactional(rollbackFor = IOException.class)
+    public void updateArticleAndImages(Article article, ArticleUpdateRequest request) throws IOException {
+        String oldStatus = article.getStatus();
         // 更新文章基本信息
         if (request.getTitle() != null) article.setTitle(request.getTitle());
         if (request.getContent() != null) article.setContent(request.getContent());
-        if (request.getCoverImage() != null) article.setCoverImage(request.getCoverImage());
+        if (request.getCoverImage() != null) article.setCoverImage(imageStorageService.externalize(request.getCoverImage()));
         if (request.getStatus() != null) article.setStatus(request.getStatus());
         articleRepository.save(article);
 
-        // 更新图片信息
+        // 更新图片信息，只写入有变化的图片
         if (request.getImages() != null) {
-            // 删除旧图片
-            articleImageRepository.deleteByArticle(article);
-            // 添加新图片
-            for (ArticleUpdateRequest.ArticleImageRequest imageRequest : request.getImages()) {
-                ArticleImage image = new ArticleImage();
-                image.setArticle(article);
-                image.setImageData(imageRequest.getImageData());
-                image.setImageName(imageRequest.getImageName());
-                image.setSortOrder(imageRequest.getSortOrder() != null ? imageRequest.getSortOrder() : 0);
-                image.setImageUrl(null);
-                articleImageRepository.save(image);
+            reconcileImages(article, request.getImages());
+        }
+
+        // 正文或图片变化后重新预渲染
+        if (request.getContent() != null || request.getImages() != null) {
+            markdownRenderService.render(article);
+        }
+
+        // 提交后再更新全文索引和首页缓存，事务回滚时内存状态保持不变
+        TransactionUtil.afterCommit(() -> {
+            articleSearchService.index(article);
+            if ("APPROVED".equals(oldStatus) || "APPROVED".equals(article.getStatus())) {
+                publishedFeedService.onArticleChanged(article.getId(), oldStatus);
+            }
+        });
+    }
+
+    /**
+     * 按图片内容（存储地址，即内容哈希）和排序对比新旧图片。
+     * 内容和排序都相同的保留不动，内容相同排序不同的只更新排序，其余的批量插入和删除
+     */
+    private void reconcileImages(Article article, List<ArticleUpdateRequest.ArticleImageRequest> requests) throws IOException {
+        List<ArticleImage> existing = new ArrayList<>(articleImageRepository.findByArticleOrderBySortOrderAsc(article));
+        List<ArticleImage> unmatched = new ArrayList<>();
+        // 第一轮：内容和排序都相同
+        for (ArticleUpdateRequest.ArticleImageRequest imageRequest : requests) {
+            ArticleImage image = newArticleImage(article, imageRequest.getImageData(), imageRequest.getImageUrl(),
+                    imageRequest.getImageName(), imageRequest.getSortOrder());
+            ArticleImage kept = takeMatch(existing, image, true);
+            if (kept != null) {
+                kept.setImageName(image.getImageName());
+            } else {
+                unmatched.add(image);
+            }
+        }
+        // 第二轮：内容相同但排序变化，保留原行只改排序
+        List<ArticleImage> inserts = new ArrayList<>();
+        for (ArticleImage image : unmatched) {
+            ArticleImage kept = takeMatch(existing, image, false);
+            if (kept != null) {
+                kept.setSortOrder(image.getSortOrder());
+                kept.setImageName(image.getImageName());
+            } else {
+                inserts.add(image);
+            }
+        }
+        // 保留行的修改由脏检查在提交时批量UPDATE，未匹配的旧图片一条语句删除
+        if (!existing.isEmpty()) {
+            List<Long> ids = new ArrayList<>(existing.size());
+            for (ArticleImage image : existing) {
+                ids.add(image.getId());
+            }
+            articleImageRepository.deleteAllByIdInBatch(ids);
+        }
+        if (!inserts.isEmpty()) {
+            articleImageRepository.saveAll(inserts);
+        }
+    }
+
+    /**
+     * 从旧图片中取出并移除第一张内容相同的图片
+     * @param sameOrder 是否要求排序也相同
+     */
+    private static ArticleImage takeMatch(List<ArticleImage> existing, ArticleImage image, boolean sameOrder) {
+        Iterator<ArticleImage> iterator = existing.iterator();
+        while (iterator.hasNext()) {
+            ArticleImage candidate = iterator.next();
+            if (Objects.equals(contentKey(candidate), contentKey(image))
+                    && (!sameOrder || Objects.equals(candidate.getSortOrder(), image.getSortOrder()))) {
+                iterator.remove();
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 图片内容标识：已转存的图片为按内容哈希生成的地址，外链为原地址，无法解析的数据为数据本身
+     */
+    private static String contentKey(ArticleImage image) {
+        return image.getImageUrl() != null ? image.getImageUrl() : image.getImageData();
+    }
+
+    /**
+     * 游标分页查询文章摘要。已发布文章按发布时间排序，其余按创建时间排序，
+     * 多查一条用于判断是否还有下一页，不执行count查询
+     */
+    public CursorResponse<ArticleSummary> findSummariesByCursor(String status, Long authorId, String cursor, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("每页数量必须大于0");
+        }
+        CursorUtil.Position position = CursorUtil.decode(cursor);
+        boolean byPublishedAt = "APPROVED".equals(status);
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<ArticleSummary> records = byPublishedAt
+                ? articleRepository.findSummariesPublishedBefore(status, authorId, position.getTime(), position.getId(), limit)
+                : articleRepository.findSummariesCreatedBefore(status, authorId, position.getTime(), position.getId(), limit);
+
+        String nextCursor = null;
+        if (records.size() > size) {
+            records = new ArrayList<>(records.subList(0, size));
+            ArticleSummary last = records.get(size - 1);
+            nextCursor = CursorUtil.encode(byPublishedAt ? last.getPublishedAt() : last.getCreatedAt(), last.getId());
+        }
+        return new CursorResponse<>(size, nextCursor, records);
+    }
+
+    /**
+     * 使用全文索引搜索文章摘要，结果按相关度排序
+     */
+    public Page<ArticleSummary> searchSummaries(String keyword, String status, Long authorId, Pageable pageable) {
+        ArticleSearchService.SearchResult result = articleSearchService.search(
+                keyword, status, authorId, pageable.getPageNumber(), pageable.getPageSize());
+        if (result.getIds().isEmpty()) {
+            return new PageImpl<>(Collections.emptyList(), pageable, result.getTotal());
+        }
+        Map<Long, ArticleSummary> byId = new HashMap<>();
+        for (ArticleSummary summary : articleRepository.findSummariesByIdIn(result.getIds())) {
+            byId.put(summary.getId(), summary);
+        }
+        List<ArticleSummary> ordered = new ArrayList<>(result.getIds().size());
+        for (Long id : result.getIds()) {
+            ArticleSummary summary = byId.get(id);
+            if (summary != null) {
+                ordered.add(summary);
             }
         }
+        return new PageImpl<>(ordered, pageable, result.getTotal());
+    }
+
+    /**
+     * 创建文章图片，Base64图片数据转存到图片存储，只在数据库中保存访问地址
+     */
+    public ArticleImage newArticleImage(Article article, String imageData, String imageUrl,
+                                        String imageName, Integer sortOrder) throws IOException {
+        ArticleImage image = new ArticleImage();
+        image.setArticle(article);
+        image.setImageName(imageName);
+        image.setSortOrder(sortOrder != null ? sortOrder : 0);
+        String storedUrl = imageData != null ? imageStorageService.storeDataUrl(imageData) : null;
+        if (storedUrl != null) {
+            image.setImageUrl(storedUrl);
+        } else if (imageUrl != null) {
+            image.setImageUrl(imageUrl);
+        } else {
+            // 无法解析的数据原样保存，保持兼容
+            image.setImageData(imageData);
+        }
+        return image;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,76 @@
+package com.example.www.service;
+
+import com.example.www.dto.ArticleSummary;
+import com.example.www.dto.AuthorSummary;
+import com.example.www.entity.Article;
+import com.example.www.repository.UserRepository;
+import com.example.www.util.ImageUrlUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 作者信息服务，批量查询文章作者的用户名和头像
+ */
+@Service
+public class AuthorService {
+    @Autowired
+    private UserRepository userRepository;
+
+    /**
+     * 批量填充文章的作者信息，一页文章只查询一次用户表
+     */
+    public void fillAuthorInfo(List<Article> articles) {
+        Set<Long> authorIds = new HashSet<>();
+        for (Article article : articles) {
+            authorIds.add(article.getAuthorId());
+        }
+        Map<Long, AuthorSummary> authors = findAuthors(authorIds);
+        for (Article article : articles) {
+            AuthorSummary author = authors.get(article.getAuthorId());
+            if (author != null) {
+                article.setAuthorName(author.getUsername());
+                article.setAuthorAvatar(ImageUrlUtil.sized(author.getAvatar(), ImageUrlUtil.THUMB));
+            }
+        }
+    }
+
+    /**
+     * 批量填充文章摘要的作者信息
+     */
+    public void fillSummaryAuthorInfo(List<ArticleSummary> summaries) {
+        Set<Long> authorIds = new HashSet<>();
+        for (ArticleSummary summary : summaries) {
+            authorIds.add(summary.getAuthorId());
+        }
+        Map<Long, AuthorSummary> authors = findAuthors(authorIds);
+        for (ArticleSummary summary : summaries) {
+            AuthorSummary author = authors.get(summary.getAuthorId());
+            if (author != null) {
+                summary.setAuthorName(author.getUsername());
+                summary.setAuthorAvatar(ImageUrlUtil.sized(author.getAvatar(), ImageUrlUtil.THUMB));
+            }
+        }
+    }
+
+    /**
+     * 根据作者ID集合批量查询作者信息
+     */
+    public Map<Long, AuthorSummary> findAuthors(Collection<Long> authorIds) {
+        if (authorIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<Long, AuthorSummary> authors = new HashMap<>();
+        for (AuthorSummary author : userRepository.findAuthorSummariesByIdIn(authorIds)) {
+            authors.put(author.getId(), author);
+        }
+        return authors;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.www.service;
+
+import com.example.www.dto.CurrentUser;
+import com.example.www.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 当前用户快照缓存，按用户ID保存(id, username, userType)。
+ * 按最近访问淘汰，用户信息修改后失效
+ */
+@Service
+public class CurrentUserService {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${user.principal-cache.max-size:10000}")
+    private int maxSize;
+
+    /**
+     * 用户ID -> 用户快照，按访问顺序排列
+     */
+    private final LinkedHashMap<Long, CurrentUser> cache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, CurrentUser> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    /**
+     * 失效版本号，加载期间发生失效时放弃缓存加载结果
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * 按用户ID获取用户快照
+     * @return 用户不存在时返回null
+     */
+    public CurrentUser get(Long userId) {
+        if (userId == null) {
+            return null;
+        }
+        synchronized (cache) {
+            CurrentUser cached = cache.get(userId);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        long loadVersion = version.get();
+        return cache(userRepository.findCurrentUserById(userId), loadVersion);
+    }
+
+    /**
+     * 按用户名获取用户快照，用于只包含用户名的旧版本Token
+     * @return 用户不存在时返回null
+     */
+    public CurrentUser getByUsername(String username) {
+        if (username == null) {
+            return null;
+        }
+        long loadVersion = version.get();
+        return cache(userRepository.findCurrentUserByUsername(username), loadVersion);
+    }
+
+    /**
+     * 用户名或用户类型修改后调用，下次访问重新加载
+     */
+    public void invalidate(Long userId) {
+        synchronized (cache) {
+            version.incrementAndGet();
+            cache.remove(userId);
+        }
+    }
+
+    private CurrentUser cache(Optional<CurrentUser> loaded, long loadVersion) {
+        if (loaded.isEmpty()) {
+            return null;
+        }
+        CurrentUser user = loaded.get();
+        synchronized (cache) {
+            if (version.get() == loadVersion) {
+                cache.putIfAbsent(user.getId(), user);
+            }
+        }
+        return user;
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.www.service;
+
+import com.example.www.util.ImageUrlUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 图片衍生图服务，原图只解码一次，在有界线程池中生成固定宽度的缩略图和中等尺寸图。
+ * 不透明图片输出JPEG，带透明通道的输出PNG；无法解码或本身不超过目标宽度的图片直接复制原图
+ */
+@Service
+public class ImageDerivativeService {
+
+    @Value("${storage.derivative.thumb-width:160}")
+    private int thumbWidth;
+
+    @Value("${storage.derivative.medium-width:800}")
+    private int mediumWidth;
+
+    @Value("${storage.derivative.jpeg-quality:0.8}")
+    private float jpegQuality;
+
+    @Value("${storage.derivative.max-pixels:40000000}")
+    private long maxPixels;
+
+    @Value("${storage.derivative.pool-size:2}")
+    private int poolSize;
+
+    @Value("${storage.derivative.queue-capacity:200}")
+    private int queueCapacity;
+
+    /**
+     * 尺寸名称到目标宽度
+     */
+    private final Map<String, Integer> widths = new LinkedHashMap<>();
+
+    /**
+     * 正在生成的图片哈希，避免同一张图重复排队
+     */
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        widths.put(ImageUrlUtil.THUMB, thumbWidth);
+        widths.put(ImageUrlUtil.MEDIUM, mediumWidth);
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-derivative-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * 是否是支持的衍生图尺寸
+     */
+    public boolean isSupportedSize(String size) {
+        return widths.containsKey(size);
+    }
+
+    /**
+     * 所有衍生图尺寸
+     */
+    public Set<String> getSizes() {
+        return widths.keySet();
+    }
+
+    /**
+     * 提交衍生图生成任务。队列已满时放弃，下次访问该尺寸时会重新提交
+     * @param hash 图片哈希
+     * @param source 原图文件
+     * @param target 尺寸名称到衍生图文件路径
+     */
+    public void schedule(String hash, Path source, Function<String, Path> target) {
+        if (!inFlight.add(hash)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(source, target);
+                } catch (Exception e) {
+                    System.out.println("生成衍生图失败，图片: " + hash + ", 原因: " + e.getMessage());
+                } finally {
+                    inFlight.remove(hash);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(hash);
+        }
+    }
+
+    private void generate(Path source, Function<String, Path> target) throws IOException {
+        BufferedImage image;
+        try {
+            image = decode(source);
+        } catch (IOException | RuntimeException e) {
+            // CMYK JPEG、文件截断等无法解码的图片同样写入原图副本，避免每次访问都重新解码
+            System.out.println("图片无法解码，衍生图使用原图: " + source.getFileName() + ", 原因: " + e.getMessage());
+            image = null;
+        }
+        for (Map.Entry<String, Integer> entry : widths.entrySet()) {
+            Path file = target.apply(entry.getKey());
+            if (Files.exists(file)) {
+                continue;
+            }
+            Files.createDirectories(file.getParent());
+            Path tmp = Files.createTempFile(file.getParent(), "derive-", ".tmp");
+            try {
+                if (image == null || image.getWidth() <= entry.getValue()) {
+                    Files.copy(source, tmp, StandardCopyOption.REPLACE_EXISTING);
+                } else {
+                    write(resize(image, entry.getValue()), tmp);
+                }
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        }
+    }
+
+    /**
+     * 先读取尺寸，像素数超过上限的图片不解码，避免占用过多内存
+     * @return 解码后的图片，格式不支持或尺寸过大时返回null
+     */
+    private BufferedImage decode(Path source) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > maxPixels) {
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * 按宽度等比缩小，缩放比例较大时逐次减半以保证质量
+     */
+    private static BufferedImage resize(BufferedImage image, int width) {
+        boolean alpha = image.getColorModel().hasAlpha();
+        int type = alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = image;
+        int currentWidth = image.getWidth();
+        int currentHeight = image.getHeight();
+        do {
+            int nextWidth = Math.max(width, currentWidth / 2);
+            int nextHeight = Math.max(1, (int) Math.round((double) image.getHeight() * nextWidth / image.getWidth()));
+            BufferedImage next = new BufferedImage(nextWidth, nextHeight, type);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, nextWidth, nextHeight, 0, 0, currentWidth, currentHeight, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+            currentWidth = nextWidth;
+            currentHeight = nextHeight;
+        } while (currentWidth > width);
+        return current;
+    }
+
+    private void write(BufferedImage image, Path file) throws IOException {
+        if (image.getColorModel().hasAlpha()) {
+            ImageIO.write(image, "png", file.toFile());
+            return;
+        }
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(file.toFile())) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+}
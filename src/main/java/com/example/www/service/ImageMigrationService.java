@@ -0,0 +1,114 @@
+package com.example.www.service;
+
+import com.example.www.repository.ArticleImageRepository;
+import com.example.www.repository.ArticleRepository;
+import com.example.www.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * 一次性迁移任务：将数据库中Base64格式的文章图片、封面和用户头像转存到图片存储。
+ * 通过配置 storage.migrate-base64=true 启用，迁移完成后关闭即可。
+ * 每条记录单独读取和更新，内存中同时只保留一张图片。
+ */
+@Service
+@ConditionalOnProperty(name = "storage.migrate-base64", havingValue = "true")
+public class ImageMigrationService implements ApplicationRunner {
+
+    @Autowired
+    private ImageStorageService imageStorageService;
+
+    @Autowired
+    private ArticleImageRepository articleImageRepository;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MarkdownRenderService markdownRenderService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        System.out.println("=== 开始迁移Base64图片 ===");
+        int images = migrateArticleImages();
+        int covers = migrateArticleCovers();
+        int avatars = migrateUserAvatars();
+        System.out.println("文章图片: " + images + ", 文章封面: " + covers + ", 用户头像: " + avatars);
+        System.out.println("=== Base64图片迁移完成 ===");
+    }
+
+    /**
+     * 迁移文章图片
+     */
+    public int migrateArticleImages() {
+        int migrated = 0;
+        List<Long> ids = articleImageRepository.findIdsWithImageData();
+        for (Long id : ids) {
+            String url = storeQuietly("文章图片", id, articleImageRepository.findImageDataById(id));
+            if (url != null && articleImageRepository.replaceImageDataWithUrl(id, url) > 0) {
+                // 正文中的图片地址变了，下次访问详情时重新渲染
+                markdownRenderService.invalidateByImageId(id);
+                migrated++;
+            }
+        }
+        return migrated;
+    }
+
+    /**
+     * 迁移文章封面
+     */
+    public int migrateArticleCovers() {
+        int migrated = 0;
+        List<Long> ids = articleRepository.findIdsWithDataUrlCover();
+        for (Long id : ids) {
+            String cover = articleRepository.findCoverImageById(id).orElse(null);
+            String url = storeQuietly("文章封面", id, cover);
+            if (url != null) {
+                migrated += articleRepository.updateCoverImage(id, url);
+            }
+        }
+        return migrated;
+    }
+
+    /**
+     * 迁移用户头像
+     */
+    public int migrateUserAvatars() {
+        int migrated = 0;
+        List<Long> ids = userRepository.findIdsWithDataUrlAvatar();
+        for (Long id : ids) {
+            String url = storeQuietly("用户头像", id, userRepository.findAvatarById(id));
+            if (url != null) {
+                migrated += userRepository.updateAvatar(id, url);
+            }
+        }
+        return migrated;
+    }
+
+    /**
+     * 转存单张图片，失败时记录日志并跳过，不影响其余记录
+     */
+    private String storeQuietly(String kind, Long id, String data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            String url = imageStorageService.storeDataUrl(data);
+            if (url == null) {
+                System.out.println(kind + "数据无法解析，跳过: " + id);
+            }
+            return url;
+        } catch (Exception e) {
+            System.out.println(kind + "迁移失败，跳过: " + id + ", " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.www.service;
+
+import com.example.www.util.DataUrlUtil;
+import com.example.www.util.ImageUrlUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * 图片存储服务，按内容SHA-256哈希存储在本地文件系统，相同图片只保存一份
+ */
+@Service
+public class ImageStorageService {
+    /**
+     * 图片访问地址前缀
+     */
+    public static final String URL_PREFIX = ImageUrlUtil.URL_PREFIX;
+
+    private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+    @Value("${storage.image-dir:./data/images}")
+    private String imageDir;
+
+    @Autowired
+    private ImageDerivativeService imageDerivativeService;
+
+    private Path root;
+    private Path tmpDir;
+
+    @PostConstruct
+    public void init() throws IOException {
+        root = Paths.get(imageDir).toAbsolutePath().normalize();
+        tmpDir = root.resolve("tmp");
+        Files.createDirectories(tmpDir);
+    }
+
+    /**
+     * 流式保存图片，边写入临时文件边计算哈希，完成后移动到以哈希命名的位置
+     * @param in 图片输入流
+     * @return 图片哈希
+     */
+    public String store(InputStream in) throws IOException {
+        MessageDigest digest = newDigest();
+        Path tmp = Files.createTempFile(tmpDir, "upload-", ".tmp");
+        try {
+            try (DigestInputStream digestIn = new DigestInputStream(in, digest)) {
+                Files.copy(digestIn, tmp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (detectContentType(tmp) == null) {
+                throw new IllegalArgumentException("仅支持PNG、JPEG、GIF、WEBP格式的图片");
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            Path target = resolve(hash);
+            if (!Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                try {
+                    Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException ignored) {
+                    // 并发上传了相同图片，保留已有文件
+                }
+            }
+            scheduleDerivatives(hash, target);
+            return hash;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * 保存Base64 Data URL格式的图片
+     * @return 图片访问地址，数据无法解析时返回null
+     */
+    public String storeDataUrl(String dataUrl) throws IOException {
+        DataUrlUtil.DecodedData data = DataUrlUtil.decode(dataUrl);
+        if (data == null) {
+            return null;
+        }
+        return toUrl(store(new ByteArrayInputStream(data.getBytes())));
+    }
+
+    /**
+     * 如果是Base64图片则转存到文件系统并返回访问地址，否则原样返回
+     */
+    public String externalize(String value) throws IOException {
+        if (!DataUrlUtil.isDataUrl(value)) {
+            return value;
+        }
+        String url = storeDataUrl(value);
+        return url != null ? url : value;
+    }
+
+    /**
+     * 根据哈希获取图片文件，哈希格式不正确或文件不存在时返回null
+     */
+    public Path find(String hash) {
+        if (hash == null || !HASH_PATTERN.matcher(hash).matches()) {
+            return null;
+        }
+        Path file = resolve(hash);
+        return Files.isRegularFile(file) ? file : null;
+    }
+
+    /**
+     * 获取指定尺寸的衍生图文件。衍生图尚未生成时提交生成任务并返回null，调用方先使用原图
+     */
+    public Path findDerivative(String hash, String size) {
+        Path file = find(hash);
+        if (file == null) {
+            return null;
+        }
+        Path derivative = resolveDerivative(hash, size);
+        if (Files.isRegularFile(derivative)) {
+            return derivative;
+        }
+        scheduleDerivatives(hash, file);
+        return null;
+    }
+
+    /**
+     * 生成图片访问地址
+     */
+    public String toUrl(String hash) {
+        return URL_PREFIX + hash;
+    }
+
+    /**
+     * 根据文件头识别图片类型
+     * @return MIME类型，不是支持的图片格式时返回null
+     */
+    public String detectContentType(Path file) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(12);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    break;
+                }
+            }
+        }
+        return detectContentType(header.array(), header.position());
+    }
+
+    /**
+     * 根据数据开头的字节识别图片类型
+     * @param n 有效字节数
+     * @return MIME类型，不是支持的图片格式时返回null
+     */
+    public static String detectContentType(byte[] b, int n) {
+        if (n >= 8 && (b[0] & 0xFF) == 0x89 && b[1] == 'P' && b[2] == 'N' && b[3] == 'G') {
+            return "image/png";
+        }
+        if (n >= 3 && (b[0] & 0xFF) == 0xFF && (b[1] & 0xFF) == 0xD8 && (b[2] & 0xFF) == 0xFF) {
+            return "image/jpeg";
+        }
+        if (n >= 6 && b[0] == 'G' && b[1] == 'I' && b[2] == 'F' && b[3] == '8') {
+            return "image/gif";
+        }
+        if (n >= 12 && b[0] == 'R' && b[1] == 'I' && b[2] == 'F' && b[3] == 'F'
+                && b[8] == 'W' && b[9] == 'E' && b[10] == 'B' && b[11] == 'P') {
+            return "image/webp";
+        }
+        return null;
+    }
+
+    private Path resolve(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private Path resolveDerivative(String hash, String size) {
+        return root.resolve("derived").resolve(size).resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private void scheduleDerivatives(String hash, Path file) {
+        for (String size : imageDerivativeService.getSizes()) {
+            if (!Files.isRegularFile(resolveDerivative(hash, size))) {
+                imageDerivativeService.schedule(hash, file, s -> resolveDerivative(hash, s));
+                return;
+            }
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.www.service;
+
+import com.example.www.repository.ArticleLikeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 用户点赞文章缓存，按用户保存已点赞文章ID的有序long数组。
+ * 按最近访问淘汰用户，首次访问时从数据库加载，点赞和取消点赞时同步更新
+ */
+@Service
+public class LikedArticleCache {
+    private static final int STRIPES = 64;
+
+    @Autowired
+    private ArticleLikeRepository articleLikeRepository;
+
+    @Value("${article.like-cache.max-users:10000}")
+    private int maxUsers;
+
+    /**
+     * 用户ID -> 已点赞文章ID集合，按访问顺序排列
+     */
+    private final LinkedHashMap<Long, LongSet> cache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, LongSet> eldest) {
+            return size() > maxUsers;
+        }
+    };
+
+    /**
+     * 按用户分段的修改版本号，加载期间发生点赞变化时放弃缓存加载结果
+     */
+    private final AtomicLongArray versions = new AtomicLongArray(STRIPES);
+
+    /**
+     * 判断用户是否点赞了文章
+     */
+    public boolean isLiked(Long userId, Long articleId) {
+        return getLikedArticles(userId).contains(articleId);
+    }
+
+    /**
+     * 获取用户已点赞的文章ID集合
+     */
+    public LongSet getLikedArticles(Long userId) {
+        LongSet liked;
+        synchronized (cache) {
+            liked = cache.get(userId);
+        }
+        if (liked != null) {
+            return liked;
+        }
+
+        int stripe = stripe(userId);
+        long version = versions.get(stripe);
+        List<Long> articleIds = articleLikeRepository.findArticleIdsByUserId(userId);
+        liked = LongSet.of(articleIds);
+        synchronized (cache) {
+            if (versions.get(stripe) == version) {
+                cache.putIfAbsent(userId, liked);
+            }
+        }
+        return liked;
+    }
+
+    /**
+     * 点赞成功后更新缓存
+     */
+    public void onLiked(Long userId, Long articleId) {
+        synchronized (cache) {
+            versions.incrementAndGet(stripe(userId));
+            LongSet liked = cache.get(userId);
+            if (liked != null) {
+                cache.put(userId, liked.with(articleId));
+            }
+        }
+    }
+
+    /**
+     * 取消点赞成功后更新缓存
+     */
+    public void onUnliked(Long userId, Long articleId) {
+        synchronized (cache) {
+            versions.incrementAndGet(stripe(userId));
+            LongSet liked = cache.get(userId);
+            if (liked != null) {
+                cache.put(userId, liked.without(articleId));
+            }
+        }
+    }
+
+    private static int stripe(Long userId) {
+        return (int) (userId & (STRIPES - 1));
+    }
+
+    /**
+     * 不可变的有序long集合，修改时复制
+     */
+    public static final class LongSet {
+        private static final LongSet EMPTY = new LongSet(new long[0]);
+
+        private final long[] values;
+
+        private LongSet(long[] values) {
+            this.values = values;
+        }
+
+        static LongSet of(List<Long> ids) {
+            if (ids.isEmpty()) {
+                return EMPTY;
+            }
+            long[] values = new long[ids.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = ids.get(i);
+            }
+            Arrays.sort(values);
+            return new LongSet(values);
+        }
+
+        public boolean contains(long value) {
+            return Arrays.binarySearch(values, value) >= 0;
+        }
+
+        public int size() {
+            return values.length;
+        }
+
+        LongSet with(long value) {
+            int index = Arrays.binarySearch(values, value);
+            if (index >= 0) {
+                return this;
+            }
+            int insertAt = -index - 1;
+            long[] copy = new long[values.length + 1];
+            System.arraycopy(values, 0, copy, 0, insertAt);
+            copy[insertAt] = value;
+            System.arraycopy(values, insertAt, copy, insertAt + 1, values.length - insertAt);
+            return new LongSet(copy);
+        }
+
+        LongSet without(long value) {
+            int index = Arrays.binarySearch(values, value);
+            if (index < 0) {
+                return this;
+            }
+            long[] copy = new long[values.length - 1];
+            System.arraycopy(values, 0, copy, 0, index);
+            System.arraycopy(values, index + 1, copy, index, values.length - index - 1);
+            return new LongSet(copy);
+        }
+    }
+}
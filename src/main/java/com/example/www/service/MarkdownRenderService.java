@@ -0,0 +1,327 @@
+package com.example.www.service;
+
+import com.example.www.dto.ArticleSummary;
+import com.example.www.dto.TocEntry;
+import com.example.www.entity.Article;
+import com.example.www.entity.ArticleImage;
+import com.example.www.entity.ArticleRender;
+import com.example.www.repository.ArticleImageRepository;
+import com.example.www.repository.ArticleRenderRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.commonmark.Extension;
+import org.commonmark.ext.gfm.tables.TablesExtension;
+import org.commonmark.node.AbstractVisitor;
+import org.commonmark.node.Code;
+import org.commonmark.node.HardLineBreak;
+import org.commonmark.node.Heading;
+import org.commonmark.node.Image;
+import org.commonmark.node.Node;
+import org.commonmark.node.Paragraph;
+import org.commonmark.node.SoftLineBreak;
+import org.commonmark.node.Text;
+import org.commonmark.parser.Parser;
+import org.commonmark.renderer.html.AttributeProvider;
+import org.commonmark.renderer.html.HtmlRenderer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Markdown预渲染服务，文章创建、修改和审核通过时把正文渲染为HTML，
+ * 同时提取目录、纯文本摘要和字数保存到article_render表，详情页不必在客户端解析Markdown
+ */
+@Service
+public class MarkdownRenderService {
+
+    private static final List<Extension> EXTENSIONS = List.of(TablesExtension.create());
+
+    private static final Parser PARSER = Parser.builder().extensions(EXTENSIONS).build();
+
+    /**
+     * 原始HTML一律转义，javascript:等危险链接会被清除
+     */
+    private static final HtmlRenderer HTML_RENDERER = HtmlRenderer.builder()
+            .extensions(EXTENSIONS)
+            .escapeHtml(true)
+            .sanitizeUrls(true)
+            .attributeProviderFactory(context -> new HeadingIdProvider())
+            .build();
+
+    /**
+     * 单个汉字算一个字，其他文字按连续的字母数字算一个词
+     */
+    private static final Pattern WORD_PATTERN = Pattern.compile("\\p{IsHan}|[\\p{L}\\p{N}&&[^\\p{IsHan}]]+");
+
+    private static final TypeReference<List<TocEntry>> TOC_TYPE = new TypeReference<>() { };
+
+    /**
+     * 正文中的图片占位符 ![说明](#image序号)，序号为按排序号排列的图片下标，与前端一致
+     */
+    private static final Pattern IMAGE_PLACEHOLDER = Pattern.compile("!\\[([^\\]]*)\\]\\(#image(\\d+)\\)");
+
+    @Autowired
+    private ArticleRenderRepository articleRenderRepository;
+
+    @Autowired
+    private ArticleImageRepository articleImageRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * 重新计算文章的渲染结果，正文和图片都没有变化时直接返回已保存的结果，否则重新渲染并保存。
+     * 用于修改正文或图片的写操作
+     */
+    public ArticleRender render(Article article) {
+        return render(article, articleImageRepository.findByArticleOrderBySortOrderAsc(article),
+                articleRenderRepository.findById(article.getId()).orElse(null));
+    }
+
+    /**
+     * 获取详情页使用的渲染结果，已有结果时直接返回，不再计算摘要；
+     * 写操作负责更新或删除保存的结果，没有结果时才渲染
+     * @param images 文章图片，按排序号排列
+     */
+    public ArticleRender getRender(Article article, List<ArticleImage> images) {
+        ArticleRender existing = articleRenderRepository.findById(article.getId()).orElse(null);
+        return existing != null ? existing : render(article, images, null);
+    }
+
+    /**
+     * 删除图片所属文章的渲染结果，用于不经过文章修改直接更新图片地址的场景
+     */
+    public void invalidateByImageId(Long imageId) {
+        articleRenderRepository.deleteByImageId(imageId);
+    }
+
+    private ArticleRender render(Article article, List<ArticleImage> images, ArticleRender existing) {
+        List<String> imageUrls = new ArrayList<>();
+        for (ArticleImage image : images) {
+            imageUrls.add(image.getImageUrl() != null ? image.getMediumUrl() : image.getImageData());
+        }
+        String content = resolveImages(article.getContent() != null ? article.getContent() : "", imageUrls);
+        String sourceHash = sha256(content);
+        if (existing != null && sourceHash.equals(existing.getSourceHash())) {
+            return existing;
+        }
+
+        Node document = PARSER.parse(content);
+        List<TocEntry> toc = new ArrayList<>();
+        document.accept(new TocCollector(toc));
+        PlainTextCollector plainText = new PlainTextCollector();
+        document.accept(plainText);
+        String text = plainText.toString().replaceAll("\\s+", " ").trim();
+
+        ArticleRender render = existing != null ? existing : new ArticleRender();
+        render.setArticleId(article.getId());
+        render.setSourceHash(sourceHash);
+        render.setContentHtml(HTML_RENDERER.render(document));
+        render.setToc(writeToc(toc));
+        render.setExcerpt(text.length() > ArticleSummary.EXCERPT_LENGTH
+                ? text.substring(0, ArticleSummary.EXCERPT_LENGTH) : text);
+        render.setWordCount(countWords(text));
+        render.setRenderedAt(LocalDateTime.now());
+        try {
+            return articleRenderRepository.save(render);
+        } catch (DataIntegrityViolationException e) {
+            // 并发请求已经保存了同一篇文章的渲染结果
+            return render;
+        }
+    }
+
+    /**
+     * 解析保存的目录JSON
+     */
+    public List<TocEntry> readToc(ArticleRender render) {
+        if (render.getToc() == null || render.getToc().isEmpty()) {
+            return Collections.emptyList();
+        }
+        try {
+            return objectMapper.readValue(render.getToc(), TOC_TYPE);
+        } catch (JsonProcessingException e) {
+            return Collections.emptyList();
+        }
+    }
+
+    private String writeToc(List<TocEntry> toc) {
+        try {
+            return objectMapper.writeValueAsString(toc);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 把图片占位符替换为图片地址，与前端渲染时的替换规则相同；找不到对应图片的占位符保持原样
+     */
+    private static String resolveImages(String content, List<String> imageUrls) {
+        Matcher matcher = IMAGE_PLACEHOLDER.matcher(content);
+        StringBuilder sb = new StringBuilder();
+        while (matcher.find()) {
+            String replacement = matcher.group();
+            String digits = matcher.group(2);
+            int index = digits.length() > 9 ? Integer.MAX_VALUE : Integer.parseInt(digits);
+            String url = index < imageUrls.size() ? imageUrls.get(index) : null;
+            if (url != null) {
+                // 尖括号包裹的链接地址允许包含空格和括号
+                replacement = "![" + matcher.group(1) + "](<" + url.replaceAll("[<>\\s]", "") + ">)";
+            }
+            matcher.appendReplacement(sb, Matcher.quoteReplacement(replacement));
+        }
+        matcher.appendTail(sb);
+        return sb.toString();
+    }
+
+    private static int countWords(String text) {
+        Matcher matcher = WORD_PATTERN.matcher(text);
+        int count = 0;
+        while (matcher.find()) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 标题的纯文本
+     */
+    private static String headingText(Node heading) {
+        StringBuilder sb = new StringBuilder();
+        appendText(heading, sb);
+        return sb.toString().trim();
+    }
+
+    private static void appendText(Node node, StringBuilder sb) {
+        for (Node child = node.getFirstChild(); child != null; child = child.getNext()) {
+            if (child instanceof Text) {
+                sb.append(((Text) child).getLiteral());
+            } else if (child instanceof Code) {
+                sb.append(((Code) child).getLiteral());
+            } else if (child instanceof SoftLineBreak) {
+                sb.append(' ');
+            } else {
+                appendText(child, sb);
+            }
+        }
+    }
+
+    /**
+     * 根据标题文字生成锚点id，重复的标题依次加-1、-2后缀
+     */
+    private static String slug(String text, Map<String, Integer> used) {
+        String slug = text.toLowerCase(Locale.ROOT)
+                .replaceAll("[^\\p{L}\\p{N}\\s-]", "")
+                .trim()
+                .replaceAll("\\s+", "-");
+        if (slug.isEmpty()) {
+            slug = "section";
+        }
+        int count = used.merge(slug, 1, Integer::sum);
+        return count > 1 ? slug + "-" + (count - 1) : slug;
+    }
+
+    private static String sha256(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 按文档顺序收集标题，生成的id与HeadingIdProvider一致
+     */
+    private static class TocCollector extends AbstractVisitor {
+        private final List<TocEntry> toc;
+        private final Map<String, Integer> used = new HashMap<>();
+
+        TocCollector(List<TocEntry> toc) {
+            this.toc = toc;
+        }
+
+        @Override
+        public void visit(Heading heading) {
+            String text = headingText(heading);
+            toc.add(new TocEntry(heading.getLevel(), text, slug(text, used)));
+        }
+    }
+
+    /**
+     * 收集正文的纯文本，用于摘要和字数；图片、代码块和原始HTML不计入
+     */
+    private static class PlainTextCollector extends AbstractVisitor {
+        private final StringBuilder sb = new StringBuilder();
+
+        @Override
+        public void visit(Text text) {
+            sb.append(text.getLiteral());
+        }
+
+        @Override
+        public void visit(Code code) {
+            sb.append(code.getLiteral());
+        }
+
+        @Override
+        public void visit(Image image) {
+            // 不收集图片的说明文字
+        }
+
+        @Override
+        public void visit(SoftLineBreak softLineBreak) {
+            sb.append(' ');
+        }
+
+        @Override
+        public void visit(HardLineBreak hardLineBreak) {
+            sb.append(' ');
+        }
+
+        @Override
+        public void visit(Paragraph paragraph) {
+            visitChildren(paragraph);
+            sb.append(' ');
+        }
+
+        @Override
+        public void visit(Heading heading) {
+            visitChildren(heading);
+            sb.append(' ');
+        }
+
+        @Override
+        public String toString() {
+            return sb.toString();
+        }
+    }
+
+    /**
+     * 渲染时给标题加上id，每次渲染创建新实例
+     */
+    private static class HeadingIdProvider implements AttributeProvider {
+        private final Map<String, Integer> used = new HashMap<>();
+
+        @Override
+        public void setAttributes(Node node, String tagName, Map<String, String> attributes) {
+            if (node instanceof Heading) {
+                attributes.put("id", slug(headingText(node), used));
+            }
+        }
+    }
+}
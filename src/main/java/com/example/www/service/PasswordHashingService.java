@@ -0,0 +1,135 @@
+package com.example.www.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 密码哈希服务，BCrypt计算在独立的有界线程池中执行，不占用Tomcat工作线程。
+ * 线程池和队列都满时立即拒绝，由调用方返回429
+ */
+@Service
+public class PasswordHashingService {
+
+    @Value("${security.password.bcrypt-strength:10}")
+    private int strength;
+
+    @Value("${security.password.pool-size:0}")
+    private int poolSize;
+
+    @Value("${security.password.queue-capacity:64}")
+    private int queueCapacity;
+
+    private BCryptPasswordEncoder encoder;
+
+    /**
+     * 私有线程池，不注册为Bean，避免被当作应用的默认异步执行器
+     */
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        encoder = new BCryptPasswordEncoder(strength);
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        System.out.println("密码哈希线程池已启动，线程数: " + threads + ", 队列容量: " + queueCapacity
+                + ", BCrypt强度: " + strength);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * 异步计算密码哈希
+     */
+    public CompletableFuture<String> encode(String rawPassword) {
+        return submit(() -> encoder.encode(rawPassword));
+    }
+
+    /**
+     * 异步校验密码，校验通过且哈希强度低于当前配置时顺带生成新哈希
+     */
+    public CompletableFuture<VerifyResult> verify(String rawPassword, String encodedPassword) {
+        return submit(() -> {
+            if (encodedPassword == null || !encoder.matches(rawPassword, encodedPassword)) {
+                return new VerifyResult(false, null);
+            }
+            String upgraded = encoder.upgradeEncoding(encodedPassword) ? encoder.encode(rawPassword) : null;
+            return new VerifyResult(true, upgraded);
+        });
+    }
+
+    /**
+     * 异步修改密码：原密码校验通过后计算新密码的哈希，在同一个任务中完成
+     * @return 新密码的哈希，原密码不正确时为null
+     */
+    public CompletableFuture<String> change(String oldPassword, String encodedPassword, String newPassword) {
+        return submit(() -> {
+            if (encodedPassword == null || !encoder.matches(oldPassword, encodedPassword)) {
+                return null;
+            }
+            return encoder.encode(newPassword);
+        });
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new BusyException());
+        }
+    }
+
+    /**
+     * 密码校验结果
+     */
+    public static class VerifyResult {
+        private final boolean matched;
+        private final String upgradedHash;
+
+        public VerifyResult(boolean matched, String upgradedHash) {
+            this.matched = matched;
+            this.upgradedHash = upgradedHash;
+        }
+
+        public boolean isMatched() {
+            return matched;
+        }
+
+        /**
+         * 按当前强度重新生成的哈希，不需要升级时为null
+         */
+        public String getUpgradedHash() {
+            return upgradedHash;
+        }
+    }
+
+    /**
+     * 密码哈希线程池已满
+     */
+    public static class BusyException extends RuntimeException {
+        public BusyException() {
+            super("服务繁忙，请稍后重试");
+        }
+    }
+}
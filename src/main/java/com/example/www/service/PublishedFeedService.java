@@ -0,0 +1,312 @@
+package com.example.www.service;
+
+import com.example.www.dto.ArticleSummary;
+import com.example.www.dto.PageResponse;
+import com.example.www.repository.ArticleRepository;
+import com.example.www.util.CursorUtil;
+import com.example.www.util.ImageUrlUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 已发布文章首页缓存。
+ * 在内存中按发布时间倒序保存前若干篇已发布文章的摘要，审核通过、修改和删除时增量更新，
+ * 稳态下匿名访问首页不查询数据库
+ */
+@Service
+public class PublishedFeedService {
+    private static final String APPROVED = "APPROVED";
+    /**
+     * 加载期间缓存被修改时丢弃结果重新加载的次数，超过后本次由调用方查询数据库
+     */
+    private static final int MAX_LOAD_ATTEMPTS = 3;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private AuthorService authorService;
+
+    @Value("${article.feed.capacity:240}")
+    private int capacity;
+
+    /**
+     * 保护缓存状态，持锁时只读写内存，查询数据库都在锁外进行
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * 按发布时间、ID倒序排列的文章摘要
+     */
+    private final List<ArticleSummary> window = new ArrayList<>();
+
+    /**
+     * 已发布文章总数
+     */
+    private long total;
+
+    private volatile boolean loaded;
+
+    /**
+     * 缓存窗口末尾因删除出现空位，下次读取时补齐
+     */
+    private boolean needsRefill;
+
+    /**
+     * 缓存每次修改后加一，锁外加载的结果只在期间没有修改时才写入缓存
+     */
+    private long version;
+
+    /**
+     * 获取已发布文章的一页，超出缓存范围时返回null，由调用方查询数据库
+     * @param page 页码，从1开始
+     * @param size 每页数量
+     */
+    public PageResponse<ArticleSummary> getPage(int page, int size) {
+        if (page < 1 || size < 1 || (long) page * size > capacity) {
+            return null;
+        }
+        for (int attempt = 0; attempt < MAX_LOAD_ATTEMPTS; attempt++) {
+            boolean fullLoad;
+            ArticleSummary last;
+            int missing;
+            long startVersion;
+            lock.lock();
+            try {
+                if (loaded && needsRefill && window.size() >= total) {
+                    needsRefill = false;
+                }
+                if (loaded && !needsRefill) {
+                    return slice(page, size);
+                }
+                fullLoad = !loaded;
+                last = fullLoad || window.isEmpty() ? null : window.get(window.size() - 1);
+                missing = capacity - (fullLoad ? 0 : window.size());
+                startVersion = version;
+            } finally {
+                lock.unlock();
+            }
+
+            // 在锁外查询数据库，写入前确认期间缓存没有被修改，否则重新加载
+            List<ArticleSummary> loadedSummaries = last == null
+                    ? loadAfter(CursorUtil.FIRST_PAGE_TIME, Long.MAX_VALUE, missing)
+                    : loadAfter(last.getPublishedAt(), last.getId(), missing);
+            long loadedTotal = fullLoad ? articleRepository.countByStatus(APPROVED) : 0;
+
+            lock.lock();
+            try {
+                if (version == startVersion) {
+                    apply(fullLoad, loadedSummaries, loadedTotal);
+                    return slice(page, size);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 文章新增、修改或状态变化后更新缓存
+     * @param articleId 文章ID
+     * @param oldStatus 修改前的状态，新建文章为null
+     */
+    public void onArticleChanged(Long articleId, String oldStatus) {
+        if (!loaded && invalidateLoading()) {
+            return;
+        }
+        // 在锁外查询最新摘要，持锁时只修改内存
+        ArticleSummary summary = articleRepository.findSummaryById(articleId).orElse(null);
+        if (summary != null && APPROVED.equals(summary.getStatus())) {
+            authorService.fillSummaryAuthorInfo(List.of(summary));
+        }
+        lock.lock();
+        try {
+            version++;
+            if (!loaded) {
+                return;
+            }
+            boolean wasApproved = APPROVED.equals(oldStatus);
+            boolean isApproved = summary != null && APPROVED.equals(summary.getStatus());
+            total += (isApproved ? 1 : 0) - (wasApproved ? 1 : 0);
+
+            removeFromWindow(articleId);
+            if (isApproved && summary.getPublishedAt() != null) {
+                insert(summary);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 文章删除后更新缓存
+     * @param articleId 文章ID
+     * @param oldStatus 删除前的状态
+     */
+    public void onArticleDeleted(Long articleId, String oldStatus) {
+        lock.lock();
+        try {
+            version++;
+            if (!loaded) {
+                return;
+            }
+            if (APPROVED.equals(oldStatus)) {
+                total--;
+            }
+            removeFromWindow(articleId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 作者修改用户名或头像后更新缓存中的作者信息
+     */
+    public void onAuthorChanged(Long authorId, String username, String avatar) {
+        lock.lock();
+        try {
+            version++;
+            for (ArticleSummary summary : window) {
+                if (authorId.equals(summary.getAuthorId())) {
+                    summary.setAuthorName(username);
+                    summary.setAuthorAvatar(ImageUrlUtil.sized(avatar, ImageUrlUtil.THUMB));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 计数写回数据库后同步更新缓存中的浏览次数或点赞数
+     * @param column 计数列名
+     * @param deltas 文章ID -> 增量
+     */
+    public void onCountersFlushed(String column, Map<Long, Long> deltas) {
+        lock.lock();
+        try {
+            version++;
+            for (ArticleSummary summary : window) {
+                Long delta = deltas.get(summary.getId());
+                if (delta == null) {
+                    continue;
+                }
+                if ("view_count".equals(column)) {
+                    summary.setViewCount((int) (summary.getViewCount() + delta));
+                } else if ("like_count".equals(column)) {
+                    summary.setLikeCount((int) Math.max(0, summary.getLikeCount() + delta));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 未加载时的修改只需让正在进行的加载失效
+     * @return 缓存仍未加载时返回true，已加载完成时返回false，需要按正常流程更新
+     */
+    private boolean invalidateLoading() {
+        lock.lock();
+        try {
+            if (loaded) {
+                return false;
+            }
+            version++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 写入锁外加载的结果，需持有锁
+     * @param fullLoad true为首次加载整个窗口，false为补齐窗口末尾
+     */
+    private void apply(boolean fullLoad, List<ArticleSummary> summaries, long loadedTotal) {
+        if (fullLoad) {
+            window.clear();
+            total = loadedTotal;
+            loaded = true;
+        }
+        // 补齐时只追加窗口末尾，不重新加载整个窗口
+        window.addAll(summaries);
+        needsRefill = false;
+        version++;
+    }
+
+    /**
+     * 复制缓存中的一页，需持有锁
+     */
+    private PageResponse<ArticleSummary> slice(int page, int size) {
+        int from = (page - 1) * size;
+        List<ArticleSummary> records = new ArrayList<>(size);
+        for (int i = from; i < window.size() && records.size() < size; i++) {
+            records.add(window.get(i).copy());
+        }
+        int pages = (int) ((total + size - 1) / size);
+        return new PageResponse<>(total, pages, page, size, records);
+    }
+
+    private List<ArticleSummary> loadAfter(LocalDateTime publishedAt, Long id, int limit) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        List<ArticleSummary> summaries = articleRepository.findSummariesPublishedBefore(
+                APPROVED, null, publishedAt, id, PageRequest.of(0, limit));
+        authorService.fillSummaryAuthorInfo(summaries);
+        return summaries;
+    }
+
+    private void removeFromWindow(Long articleId) {
+        Iterator<ArticleSummary> iterator = window.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getId().equals(articleId)) {
+                iterator.remove();
+                needsRefill = true;
+                return;
+            }
+        }
+    }
+
+    /**
+     * 按发布时间倒序插入，超出容量时丢弃末尾
+     */
+    private void insert(ArticleSummary summary) {
+        int index = 0;
+        while (index < window.size() && compare(window.get(index), summary) < 0) {
+            index++;
+        }
+        boolean windowHasAll = window.size() >= total - 1 && !needsRefill;
+        if (index == window.size() && window.size() >= capacity) {
+            return;
+        }
+        if (index == window.size() && !windowHasAll) {
+            // 排在窗口末尾之后，缓存中不一定有它前面的文章，留给补齐逻辑处理
+            needsRefill = true;
+            return;
+        }
+        window.add(index, summary);
+        if (window.size() > capacity) {
+            window.remove(window.size() - 1);
+        }
+    }
+
+    /**
+     * 比较两篇文章在首页中的先后，发布时间晚的在前
+     */
+    private static int compare(ArticleSummary a, ArticleSummary b) {
+        int byTime = b.getPublishedAt().compareTo(a.getPublishedAt());
+        return byTime != 0 ? byTime : Long.compare(b.getId(), a.getId());
+    }
+}
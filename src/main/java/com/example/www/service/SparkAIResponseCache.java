@@ -0,0 +1,154 @@
+package com.example.www.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 星火对话响应缓存，默认关闭。
+ * 按(模型, 规范化后的消息)缓存成功响应，带过期时间和条数上限；
+ * 相同请求同时到达时只发送一次上游请求，其余请求共享结果
+ */
+@Service
+public class SparkAIResponseCache {
+
+    @Value("${sparkai.cache.enabled:false}")
+    private boolean enabled;
+
+    @Value("${sparkai.cache.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    @Value("${sparkai.cache.max-entries:500}")
+    private int maxEntries;
+
+    /**
+     * 缓存键 -> 响应，按访问顺序淘汰
+     */
+    private final LinkedHashMap<String, Entry> cache = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    /**
+     * 正在进行的上游请求
+     */
+    private final ConcurrentHashMap<String, CompletableFuture<ResponseEntity<String>>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 生成缓存键：模型名 + 每条消息的角色和内容（去掉首尾空白、合并连续空白）的SHA-256摘要
+     */
+    public String key(String model, List<Map<String, Object>> messages) {
+        StringBuilder sb = new StringBuilder(model);
+        for (Map<String, Object> msg : messages) {
+            Object content = msg.get("content");
+            sb.append('\u0000').append(msg.get("role")).append(':')
+              .append(content == null ? "" : content.toString().trim().replaceAll("\\s+", " "));
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 读取缓存，未命中时调用loader；相同键已有请求进行中时等待其结果
+     * @param cacheable 判断响应是否可以缓存
+     */
+    public CompletableFuture<ResponseEntity<String>> getOrLoad(String key,
+                                                               Supplier<CompletableFuture<ResponseEntity<String>>> loader,
+                                                               Predicate<ResponseEntity<String>> cacheable) {
+        long now = System.currentTimeMillis();
+        synchronized (cache) {
+            Entry entry = cache.get(key);
+            if (entry != null) {
+                if (entry.expiresAt > now) {
+                    hits.increment();
+                    return CompletableFuture.completedFuture(entry.response);
+                }
+                cache.remove(key);
+            }
+        }
+
+        CompletableFuture<ResponseEntity<String>> promise = new CompletableFuture<>();
+        CompletableFuture<ResponseEntity<String>> existing = inFlight.putIfAbsent(key, promise);
+        if (existing != null) {
+            coalesced.increment();
+            return existing;
+        }
+        misses.increment();
+
+        CompletableFuture<ResponseEntity<String>> load;
+        try {
+            load = loader.get();
+        } catch (RuntimeException e) {
+            // loader同步抛出异常时也要移除占位，否则之后的相同请求会一直等待
+            load = CompletableFuture.failedFuture(e);
+        }
+        load.whenComplete((response, e) -> {
+            if (e == null && cacheable.test(response)) {
+                synchronized (cache) {
+                    cache.put(key, new Entry(response, System.currentTimeMillis() + ttlSeconds * 1000));
+                }
+            }
+            inFlight.remove(key, promise);
+            if (e != null) {
+                promise.completeExceptionally(e);
+            } else {
+                promise.complete(response);
+            }
+        });
+        return promise;
+    }
+
+    /**
+     * 缓存统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        synchronized (cache) {
+            stats.put("size", cache.size());
+        }
+        stats.put("inFlight", inFlight.size());
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("coalesced", coalesced.sum());
+        return stats;
+    }
+
+    private static class Entry {
+        final ResponseEntity<String> response;
+        final long expiresAt;
+
+        Entry(ResponseEntity<String> response, long expiresAt) {
+            this.response = response;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,669 @@
+package com.example.www.service;
+
+import com.example.www.util.TokenEstimateUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 星火大模型代理服务。
+ * 所有请求共用一个JDK HttpClient（连接池和keep-alive由其维护），异步发送，不占用Tomcat工作线程；
+ * 每个模型的并发请求数有上限，超出后直接返回429；支持SSE流式转发
+ */
+@Service
+public class SparkAIService {
+
+    // 模型配置 - 直接使用APIPassword
+    private static final Map<String, ModelConfig> MODEL_MAP = new HashMap<>();
+    static {
+        // X1模型 - 使用v2 API
+        MODEL_MAP.put("x1", new ModelConfig(
+            "https://spark-api-open.xf-yun.com/v2/chat/completions",
+            "x1",
+            "wGYXgZuQOlUJyJtqqqCg:PMpYwqLITpiwcZbjJxXt", // APIPassword
+            32768 // 上下文长度
+        ));
+
+        // Pro模型 - 使用v1 API
+        MODEL_MAP.put("pro", new ModelConfig(
+            "https://spark-api-open.xf-yun.com/v1/chat/completions",
+            "generalv3.5",
+            "gzGHiXgjxwIenNsYbkPT:YEKfhLsfwqkNZLXsIGkj", // APIPassword
+            8192 // 上下文长度
+        ));
+
+        // 其他模型 - 暂时使用Pro的配置
+        MODEL_MAP.put("lite", new ModelConfig(
+            "https://spark-api-open.xf-yun.com/v1/chat/completions",
+            "generalv3.5",
+            "EOJwZyzFvceLOzCbsSCR:uUotsLkUvqbLZGDBKSFT", // APIPassword
+            8192 // 上下文长度
+        ));
+
+        MODEL_MAP.put("max", new ModelConfig(
+            "https://spark-api-open.xf-yun.com/v1/chat/completions",
+            "generalv3.5",
+            "uxHwFeFbNkseyeQxieCg:JAzfnEuhcVgqjWfCBrEX", // APIPassword
+            8192 // 上下文长度
+        ));
+
+        MODEL_MAP.put("ultra", new ModelConfig(
+            "https://spark-api-open.xf-yun.com/v1/chat/completions",
+            "generalv3.5",
+            "bxOIfKYlLozCzDDtDRAr:SkSnxeIHKkYkLNUJCDLu", // APIPassword
+            8192 // 上下文长度
+        ));
+    }
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private SparkAIResponseCache responseCache;
+
+    @Autowired
+    private AIRateLimiter rateLimiter;
+
+    @Value("${sparkai.connect-timeout-ms:5000}")
+    private long connectTimeoutMs;
+
+    @Value("${sparkai.read-timeout-ms:120000}")
+    private long readTimeoutMs;
+
+    @Value("${sparkai.max-concurrency-per-model:8}")
+    private int maxConcurrencyPerModel;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private ObjectProvider<Executor> applicationTaskExecutor;
+
+    private HttpClient httpClient;
+
+    /**
+     * 每个模型的并发许可
+     */
+    private final Map<String, Semaphore> permits = new HashMap<>();
+
+    @PostConstruct
+    public void init() {
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs));
+        Executor executor = virtualThreads ? applicationTaskExecutor.getIfAvailable() : null;
+        if (executor != null) {
+            // 开启虚拟线程时，applicationTaskExecutor为每个任务创建虚拟线程
+            builder.executor(executor);
+        }
+        httpClient = builder.build();
+        for (String model : MODEL_MAP.keySet()) {
+            permits.put(model, new Semaphore(maxConcurrencyPerModel));
+        }
+    }
+
+    /**
+     * 非流式对话，异步返回上游响应
+     */
+    public CompletableFuture<ResponseEntity<String>> chat(Map<String, Object> body, String clientKey) {
+        String model = (String) body.getOrDefault("model", "x1");
+        ModelConfig config = MODEL_MAP.get(model);
+
+        if (config == null) {
+            return completed(HttpStatus.BAD_REQUEST, "{\"error\":\"不支持的模型: " + model + "\"}");
+        }
+
+        Preflight preflight = preflight(config, body.get("messages"), clientKey);
+        if (preflight.error != null) {
+            return CompletableFuture.completedFuture(preflight.error);
+        }
+        List<Map<String, Object>> validMessages = preflight.messages;
+
+        if (responseCache.isEnabled()) {
+            // 相同模型和消息的请求优先使用缓存，并发的相同请求只发送一次；
+            // 命中缓存或等待其他请求结果时没有请求上游，归还已扣的用户令牌
+            String key = responseCache.key(model, validMessages);
+            AtomicBoolean loaded = new AtomicBoolean();
+            CompletableFuture<ResponseEntity<String>> result = responseCache.getOrLoad(key, () -> {
+                loaded.set(true);
+                return send(model, config, validMessages, preflight.tokens, clientKey);
+            }, this::isCacheable);
+            if (!loaded.get()) {
+                rateLimiter.refundUser(clientKey, preflight.tokens);
+            }
+            return result;
+        }
+        return send(model, config, validMessages, preflight.tokens, clientKey);
+    }
+
+    /**
+     * 发送前的检查：过滤消息、按模型上下文预算裁剪历史、扣减用户令牌
+     */
+    private Preflight preflight(ModelConfig config, Object messages, String clientKey) {
+        // 处理消息格式
+        List<Map<String, Object>> validMessages = filterMessages(messages);
+        if (validMessages == null) {
+            return Preflight.error(json(HttpStatus.BAD_REQUEST, "{\"error\":\"消息不能为空\"}"));
+        }
+
+        List<Map<String, Object>> trimmed = trimToBudget(validMessages, config.inputBudget());
+        if (trimmed == null) {
+            return Preflight.error(json(HttpStatus.BAD_REQUEST, "{\"error\":\"token数量超过上限，对话历史+问题的字数太多，需要精简输入\"}"));
+        }
+
+        int tokens = 0;
+        for (Map<String, Object> msg : trimmed) {
+            tokens += TokenEstimateUtil.estimate(msg);
+        }
+        if (!rateLimiter.tryAcquireUser(clientKey, tokens)) {
+            return Preflight.error(json(HttpStatus.TOO_MANY_REQUESTS, "{\"error\":\"请求过于频繁，请稍后再试\"}"));
+        }
+        return new Preflight(trimmed, tokens, null);
+    }
+
+    /**
+     * 从最新的消息开始保留，直到达到token预算，较早的历史被丢弃；
+     * 保留的第一条消息必须是用户消息
+     * @return 裁剪后的消息，最后一条消息本身超出预算时返回null
+     */
+    List<Map<String, Object>> trimToBudget(List<Map<String, Object>> messages, int budget) {
+        int used = 0;
+        int start = messages.size();
+        while (start > 0) {
+            int cost = TokenEstimateUtil.estimate(messages.get(start - 1));
+            if (used + cost > budget) {
+                break;
+            }
+            used += cost;
+            start--;
+        }
+        while (start < messages.size() && !"user".equals(messages.get(start).get("role"))) {
+            start++;
+        }
+        if (start >= messages.size()) {
+            return null;
+        }
+        if (start > 0) {
+            System.out.println("对话历史超出预算，丢弃较早的 " + start + " 条消息");
+        }
+        return start == 0 ? messages : new ArrayList<>(messages.subList(start, messages.size()));
+    }
+
+    /**
+     * 发送非流式请求
+     */
+    private CompletableFuture<ResponseEntity<String>> send(String model, ModelConfig config,
+                                                           List<Map<String, Object>> validMessages, int tokens,
+                                                           String clientKey) {
+        // 先占并发许可再扣模型令牌，被拒绝的请求归还已扣的用户令牌
+        Semaphore semaphore = permits.get(model);
+        if (!semaphore.tryAcquire()) {
+            rateLimiter.refundUser(clientKey, tokens);
+            return completed(HttpStatus.TOO_MANY_REQUESTS, "{\"error\":\"当前模型请求过多，请稍后再试\"}");
+        }
+        if (!rateLimiter.tryAcquireModel(model, tokens)) {
+            semaphore.release();
+            rateLimiter.refundUser(clientKey, tokens);
+            return completed(HttpStatus.TOO_MANY_REQUESTS, "{\"error\":\"当前模型用量已达上限，请稍后再试\"}");
+        }
+
+        HttpRequest request;
+        try {
+            request = buildRequest(config, buildRequestBody(config, validMessages, false));
+        } catch (JsonProcessingException e) {
+            semaphore.release();
+            refund(model, clientKey, tokens);
+            return completed(HttpStatus.BAD_REQUEST, "{\"error\":\"请求格式错误\"}");
+        }
+
+        System.out.println("=== 请求信息 ===");
+        System.out.println("发送请求到: " + config.apiUrl);
+        System.out.println("使用模型: " + config.modelName);
+        System.out.println("消息数量: " + validMessages.size());
+        System.out.println("===============");
+
+        CompletableFuture<HttpResponse<String>> future;
+        try {
+            future = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        } catch (RuntimeException e) {
+            semaphore.release();
+            refund(model, clientKey, tokens);
+            return CompletableFuture.completedFuture(mapException(e));
+        }
+        return future
+                .whenComplete((response, e) -> semaphore.release())
+                .thenApply(response -> {
+                    System.out.println("响应状态: " + response.statusCode());
+                    if (response.statusCode() >= 200 && response.statusCode() < 300) {
+                        return ResponseEntity.status(response.statusCode())
+                                .contentType(MediaType.APPLICATION_JSON).body(response.body());
+                    }
+                    System.out.println("响应体: " + response.body());
+                    return mapError(response.statusCode(), response.body());
+                })
+                .exceptionally(this::mapException);
+    }
+
+    /**
+     * 归还未发出请求已扣的用户和模型令牌
+     */
+    private void refund(String model, String clientKey, int tokens) {
+        rateLimiter.refundUser(clientKey, tokens);
+        rateLimiter.refundModel(model, tokens);
+    }
+
+    /**
+     * 只缓存上游成功且业务码为0的响应
+     */
+    private boolean isCacheable(ResponseEntity<String> response) {
+        if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
+            return false;
+        }
+        try {
+            JsonNode code = objectMapper.readTree(response.getBody()).get("code");
+            return code == null || code.asInt() == 0;
+        } catch (JsonProcessingException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 流式对话，上游SSE数据逐行转发给浏览器。
+     * 每转发完一行才向上游请求下一行，内存中最多缓冲一行；浏览器断开时取消上游请求
+     */
+    public ResponseEntity<SseEmitter> stream(Map<String, Object> body, String clientKey) {
+        String model = (String) body.getOrDefault("model", "x1");
+        ModelConfig config = MODEL_MAP.get(model);
+
+        if (config == null) {
+            return streamError(json(HttpStatus.BAD_REQUEST, "{\"error\":\"不支持的模型: " + model + "\"}"));
+        }
+
+        Preflight preflight = preflight(config, body.get("messages"), clientKey);
+        if (preflight.error != null) {
+            return streamError(preflight.error);
+        }
+        List<Map<String, Object>> validMessages = preflight.messages;
+
+        Semaphore semaphore = permits.get(model);
+        if (!semaphore.tryAcquire()) {
+            rateLimiter.refundUser(clientKey, preflight.tokens);
+            return streamError(json(HttpStatus.TOO_MANY_REQUESTS, "{\"error\":\"当前模型请求过多，请稍后再试\"}"));
+        }
+        if (!rateLimiter.tryAcquireModel(model, preflight.tokens)) {
+            semaphore.release();
+            rateLimiter.refundUser(clientKey, preflight.tokens);
+            return streamError(json(HttpStatus.TOO_MANY_REQUESTS, "{\"error\":\"当前模型用量已达上限，请稍后再试\"}"));
+        }
+
+        HttpRequest request;
+        try {
+            request = buildRequest(config, buildRequestBody(config, validMessages, true));
+        } catch (JsonProcessingException e) {
+            semaphore.release();
+            refund(model, clientKey, preflight.tokens);
+            return streamError(json(HttpStatus.BAD_REQUEST, "{\"error\":\"请求格式错误\"}"));
+        }
+
+        SseEmitter emitter = new SseEmitter(readTimeoutMs);
+        SseForwarder forwarder = new SseForwarder(emitter, semaphore);
+        emitter.onCompletion(forwarder::cancel);
+        emitter.onTimeout(forwarder::cancel);
+        emitter.onError(e -> forwarder.cancel());
+
+        System.out.println("流式请求: " + config.modelName + ", 消息数量: " + validMessages.size());
+        try {
+            httpClient.sendAsync(request, responseInfo -> {
+                        if (responseInfo.statusCode() == 200) {
+                            return HttpResponse.BodySubscribers.fromLineSubscriber(forwarder);
+                        }
+                        // 上游返回错误时读取完整错误信息后转换为一条error事件
+                        return HttpResponse.BodySubscribers.mapping(
+                                HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8),
+                                errorBody -> {
+                                    forwarder.fail(mapError(responseInfo.statusCode(), errorBody).getBody());
+                                    return null;
+                                });
+                    })
+                    .whenComplete((response, e) -> {
+                        if (e != null) {
+                            forwarder.fail(mapException(e).getBody());
+                        }
+                    });
+        } catch (RuntimeException e) {
+            // 请求未发出，归还已扣的令牌
+            refund(model, clientKey, preflight.tokens);
+            forwarder.fail(mapException(e).getBody());
+        }
+        return ResponseEntity.ok().contentType(MediaType.TEXT_EVENT_STREAM).body(emitter);
+    }
+
+    /**
+     * 过滤掉assistant角色中包含错误信息的消息，只保留有效的对话内容
+     * @return 有效消息，原始消息为空时返回null
+     */
+    @SuppressWarnings("unchecked")
+    List<Map<String, Object>> filterMessages(Object messages) {
+        List<Map<String, Object>> originalMessages = (List<Map<String, Object>>) messages;
+        if (originalMessages == null || originalMessages.isEmpty()) {
+            return null;
+        }
+
+        List<Map<String, Object>> validMessages = new ArrayList<>();
+        for (Map<String, Object> msg : originalMessages) {
+            String role = (String) msg.get("role");
+            String content = (String) msg.get("content");
+
+            // 只保留用户消息和不包含错误信息的助手消息
+            if ("user".equals(role) ||
+                ("assistant".equals(role) && content != null &&
+                 !content.contains("服务器错误") &&
+                 !content.contains("error") &&
+                 !content.isEmpty())) {
+                validMessages.add(msg);
+            }
+        }
+
+        // 如果过滤后没有有效消息，至少保留最后一条用户消息
+        if (validMessages.isEmpty()) {
+            for (int i = originalMessages.size() - 1; i >= 0; i--) {
+                Map<String, Object> msg = originalMessages.get(i);
+                if ("user".equals(msg.get("role"))) {
+                    validMessages.add(msg);
+                    break;
+                }
+            }
+        }
+        return validMessages;
+    }
+
+    /**
+     * 构建星火API请求体
+     */
+    Map<String, Object> buildRequestBody(ModelConfig config, List<Map<String, Object>> messages, boolean stream) {
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", config.modelName);
+        requestBody.put("messages", messages);
+
+        // 添加可选参数 - 根据星火API文档设置
+        if (config.apiUrl.contains("/v2/")) {
+            // X1模型参数
+            requestBody.put("temperature", 1.0); // 默认值为1.0
+            requestBody.put("top_p", 0.95);      // 默认值为0.95
+            requestBody.put("top_k", 6);         // 默认值为6
+        } else {
+            // V1模型参数
+            requestBody.put("temperature", 0.5); // 默认值为1.0
+            requestBody.put("top_p", 1.0);       // 默认值为1.0
+            requestBody.put("top_k", 4);         // 默认值为4
+        }
+
+        requestBody.put("max_tokens", config.maxOutputTokens);  // 默认值为4096
+        requestBody.put("stream", stream);
+
+        // 添加用户标识
+        requestBody.put("user", "user_" + System.currentTimeMillis());
+        return requestBody;
+    }
+
+    /**
+     * 构建发往上游的HTTP请求
+     */
+    HttpRequest buildRequest(ModelConfig config, Map<String, Object> requestBody) throws JsonProcessingException {
+        return HttpRequest.newBuilder(URI.create(config.apiUrl))
+                .timeout(Duration.ofMillis(readTimeoutMs))
+                .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                // 根据文档，两个版本的API都使用相同的认证格式：Bearer APIPassword
+                .header("Authorization", "Bearer " + config.apiPassword)
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(requestBody), StandardCharsets.UTF_8))
+                .build();
+    }
+
+    /**
+     * 按上游响应中的错误码和HTTP状态码转换为前端可读的错误信息
+     */
+    ResponseEntity<String> mapError(int statusCode, String body) {
+        String errorBody = body != null ? body : "";
+
+        // 处理特定错误码
+        if (errorBody.contains("10003")) {
+            return json(HttpStatus.BAD_REQUEST, "{\"error\":\"ClientMsgError: 请检查请求格式和参数\"}");
+        } else if (errorBody.contains("10007")) {
+            return json(HttpStatus.TOO_MANY_REQUESTS, "{\"error\":\"用户流量受限: 服务正在处理用户当前问题，请等待处理完成\"}");
+        } else if (errorBody.contains("10013")) {
+            return json(HttpStatus.BAD_REQUEST, "{\"error\":\"输入内容审核不通过，涉嫌违规，请重新调整输入内容\"}");
+        } else if (errorBody.contains("10014")) {
+            return json(HttpStatus.BAD_REQUEST, "{\"error\":\"输出内容涉及敏感信息，审核不通过\"}");
+        } else if (errorBody.contains("10907")) {
+            return json(HttpStatus.BAD_REQUEST, "{\"error\":\"token数量超过上限，对话历史+问题的字数太多，需要精简输入\"}");
+        } else if (errorBody.contains("11200") || errorBody.contains("11201") ||
+                   errorBody.contains("11202") || errorBody.contains("11203")) {
+            return json(HttpStatus.FORBIDDEN, "{\"error\":\"授权错误: 请检查API密钥权限或流量限制\"}");
+        }
+
+        // 处理HTTP状态码
+        if (statusCode == 401) {
+            return json(HttpStatus.UNAUTHORIZED, "{\"error\":\"认证失败: API密钥无效\"}");
+        } else if (statusCode == 403) {
+            return json(HttpStatus.FORBIDDEN, "{\"error\":\"权限不足: 请检查API密钥权限\"}");
+        } else if (statusCode == 429) {
+            return json(HttpStatus.TOO_MANY_REQUESTS, "{\"error\":\"请求过于频繁，请稍后再试\"}");
+        }
+
+        return json(HttpStatus.INTERNAL_SERVER_ERROR, "{\"error\":\"请求失败: 上游返回状态码 " + statusCode + "\"}");
+    }
+
+    /**
+     * 连接失败、超时等异常转换为错误响应
+     */
+    ResponseEntity<String> mapException(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof HttpTimeoutException) {
+            return json(HttpStatus.GATEWAY_TIMEOUT, "{\"error\":\"请求超时，请稍后再试\"}");
+        }
+        cause.printStackTrace();
+        String message = cause.getMessage() != null ? cause.getMessage().replace("\"", "'") : cause.getClass().getSimpleName();
+        return json(HttpStatus.INTERNAL_SERVER_ERROR, "{\"error\":\"请求失败: " + message + "\"}");
+    }
+
+    /**
+     * 流式接口的错误也以SSE返回：保留HTTP状态码，错误信息作为一条error事件
+     */
+    static ResponseEntity<SseEmitter> streamError(ResponseEntity<String> error) {
+        SseEmitter emitter = new SseEmitter();
+        try {
+            emitter.send(SseEmitter.event().name("error").data(error.getBody(), MediaType.APPLICATION_JSON));
+            emitter.complete();
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+        return ResponseEntity.status(error.getStatusCode()).contentType(MediaType.TEXT_EVENT_STREAM).body(emitter);
+    }
+
+    private static CompletableFuture<ResponseEntity<String>> completed(HttpStatus status, String body) {
+        return CompletableFuture.completedFuture(json(status, body));
+    }
+
+    private static ResponseEntity<String> json(HttpStatus status, String body) {
+        return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * 把上游SSE的data行转发到SseEmitter，一次只向上游请求一行
+     */
+    private static class SseForwarder implements Flow.Subscriber<String> {
+        private static final String DATA_PREFIX = "data:";
+
+        private final SseEmitter emitter;
+        private final Semaphore semaphore;
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private volatile Flow.Subscription subscription;
+        private volatile boolean cancelled;
+
+        SseForwarder(SseEmitter emitter, Semaphore semaphore) {
+            this.emitter = emitter;
+            this.semaphore = semaphore;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (cancelled) {
+                subscription.cancel();
+                return;
+            }
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (line.startsWith(DATA_PREFIX)) {
+                String data = line.substring(DATA_PREFIX.length()).trim();
+                try {
+                    emitter.send(SseEmitter.event().data(data, MediaType.TEXT_PLAIN));
+                } catch (IOException | IllegalStateException e) {
+                    // 浏览器已断开
+                    cancel();
+                    return;
+                }
+                if ("[DONE]".equals(data)) {
+                    complete();
+                    return;
+                }
+            }
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (!cancelled) {
+                fail("{\"error\":\"流式响应中断\"}");
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            complete();
+        }
+
+        /**
+         * 发送一条error事件后结束
+         */
+        void fail(String errorJson) {
+            if (release()) {
+                try {
+                    emitter.send(SseEmitter.event().name("error").data(errorJson, MediaType.APPLICATION_JSON));
+                    emitter.complete();
+                } catch (IOException | IllegalStateException e) {
+                    // 浏览器已断开，无需处理
+                }
+            }
+        }
+
+        /**
+         * 浏览器断开或超时，取消上游请求
+         */
+        void cancel() {
+            cancelled = true;
+            Flow.Subscription current = subscription;
+            if (current != null) {
+                current.cancel();
+            }
+            release();
+        }
+
+        private void complete() {
+            if (release()) {
+                Flow.Subscription current = subscription;
+                if (current != null) {
+                    current.cancel();
+                }
+                emitter.complete();
+            }
+        }
+
+        /**
+         * 归还并发许可，只生效一次
+         */
+        private boolean release() {
+            if (finished.compareAndSet(false, true)) {
+                semaphore.release();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 发送前检查的结果
+     */
+    private static class Preflight {
+        final List<Map<String, Object>> messages;
+        final int tokens;
+        final ResponseEntity<String> error;
+
+        Preflight(List<Map<String, Object>> messages, int tokens, ResponseEntity<String> error) {
+            this.messages = messages;
+            this.tokens = tokens;
+            this.error = error;
+        }
+
+        static Preflight error(ResponseEntity<String> error) {
+            return new Preflight(null, 0, error);
+        }
+    }
+
+    /**
+     * 模型配置类
+     */
+    static class ModelConfig {
+        String apiUrl;       // API端点
+        String modelName;    // 官方模型名称
+        String apiPassword;  // API密钥 (格式为 apiKey:apiSecret)
+        int contextTokens;   // 上下文长度（输入+输出的token数）
+        int maxOutputTokens = 4096; // 单次回答的最大token数
+
+        ModelConfig(String apiUrl, String modelName, String apiPassword, int contextTokens) {
+            this.apiUrl = apiUrl;
+            this.modelName = modelName;
+            this.apiPassword = apiPassword;
+            this.contextTokens = contextTokens;
+        }
+
+        /**
+         * 对话历史可用的token预算
+         */
+        int inputBudget() {
+            return contextTokens - maxOutputTokens;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.www.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 中英文混合分词工具类。
+ * 英文和数字按单词切分并转为小写，连续的中日韩字符切分为单字和相邻二元组
+ */
+public class BigramTokenizer {
+
+    /**
+     * 切分待索引的文本，中日韩字符同时输出单字和二元组，保证单字查询也能命中
+     */
+    public static List<String> tokenizeForIndex(String text) {
+        return tokenize(text, true);
+    }
+
+    /**
+     * 切分查询文本，连续的中日韩字符只输出二元组，单个字符时输出单字
+     */
+    public static List<String> tokenizeForQuery(String text) {
+        return tokenize(text, false);
+    }
+
+    private static List<String> tokenize(String text, boolean withUnigrams) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            int cp = text.codePointAt(i);
+            if (isCjk(cp)) {
+                int start = i;
+                while (i < length && isCjk(text.codePointAt(i))) {
+                    i += Character.charCount(text.codePointAt(i));
+                }
+                addCjkTokens(text.substring(start, i), withUnigrams, tokens);
+            } else if (Character.isLetterOrDigit(cp)) {
+                int start = i;
+                while (i < length) {
+                    int c = text.codePointAt(i);
+                    if (!Character.isLetterOrDigit(c) || isCjk(c)) {
+                        break;
+                    }
+                    i += Character.charCount(c);
+                }
+                tokens.add(text.substring(start, i).toLowerCase());
+            } else {
+                i += Character.charCount(cp);
+            }
+        }
+        return tokens;
+    }
+
+    private static void addCjkTokens(String run, boolean withUnigrams, List<String> tokens) {
+        int[] cps = run.codePoints().toArray();
+        if (cps.length == 1) {
+            tokens.add(new String(cps, 0, 1));
+            return;
+        }
+        for (int j = 0; j < cps.length; j++) {
+            if (withUnigrams) {
+                tokens.add(new String(cps, j, 1));
+            }
+            if (j + 1 < cps.length) {
+                tokens.add(new String(cps, j, 2));
+            }
+        }
+    }
+
+    private static boolean isCjk(int cp) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.www.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 游标分页工具类，游标由排序时间和文章ID组成，对客户端不透明
+ */
+public class CursorUtil {
+    /**
+     * 第一页使用的起始时间，晚于所有文章
+     */
+    public static final LocalDateTime FIRST_PAGE_TIME = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    /**
+     * 生成游标
+     * @param time 排序时间（发布时间或创建时间）
+     * @param id 文章ID
+     * @return 游标字符串
+     */
+    public static String encode(LocalDateTime time, Long id) {
+        String raw = time + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标，空游标表示第一页
+     * @param cursor 游标字符串
+     * @return 游标位置
+     * @throws IllegalArgumentException 游标格式不正确
+     */
+    public static Position decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return new Position(FIRST_PAGE_TIME, Long.MAX_VALUE);
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return new Position(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("无效的游标");
+        }
+    }
+
+    /**
+     * 游标位置
+     */
+    public static class Position {
+        private final LocalDateTime time;
+        private final Long id;
+
+        public Position(LocalDateTime time, Long id) {
+            this.time = time;
+            this.id = id;
+        }
+
+        public LocalDateTime getTime() {
+            return time;
+        }
+
+        public Long getId() {
+            return id;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.www.util;
+
+import java.util.Base64;
+
+/**
+ * Base64 Data URL 工具类，用于解析 data:image/png;base64,xxx 格式的图片数据
+ */
+public class DataUrlUtil {
+    private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+
+    /**
+     * 判断字符串是否为Data URL
+     */
+    public static boolean isDataUrl(String value) {
+        return value != null && value.startsWith("data:");
+    }
+
+    /**
+     * 解析Data URL，兼容不带前缀的纯Base64字符串
+     * @param value Data URL或Base64字符串
+     * @return 解析结果，无法解析时返回null
+     */
+    public static DecodedData decode(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        String contentType = DEFAULT_CONTENT_TYPE;
+        String payload = value;
+        if (isDataUrl(value)) {
+            int comma = value.indexOf(',');
+            if (comma < 0) {
+                return null;
+            }
+            String meta = value.substring(5, comma);
+            int semicolon = meta.indexOf(';');
+            String type = semicolon >= 0 ? meta.substring(0, semicolon) : meta;
+            if (!type.isEmpty()) {
+                contentType = type;
+            }
+            payload = value.substring(comma + 1);
+        }
+        try {
+            return new DecodedData(contentType, Base64.getMimeDecoder().decode(payload));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 解析后的数据
+     */
+    public static class DecodedData {
+        private final String contentType;
+        private final byte[] bytes;
+
+        public DecodedData(String contentType, byte[] bytes) {
+            this.contentType = contentType;
+            this.bytes = bytes;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public byte[] getBytes() {
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.www.util;
+
+/**
+ * HTTP Range请求头解析工具类，只支持单个区间（bytes=start-end）
+ */
+public class HttpRangeUtil {
+
+    /**
+     * 解析Range请求头
+     * @param header Range请求头
+     * @param length 资源总长度
+     * @return 请求的区间；请求头为空或格式不支持时返回null，表示返回完整内容；
+     *         区间超出资源范围时返回 {@link ByteRange#UNSATISFIABLE}
+     */
+    public static ByteRange parse(String header, long length) {
+        if (header == null || !header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = header.substring(6).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String startPart = spec.substring(0, dash).trim();
+            String endPart = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (startPart.isEmpty()) {
+                // bytes=-N 表示最后N个字节
+                long suffix = Long.parseLong(endPart);
+                if (suffix <= 0) {
+                    return ByteRange.UNSATISFIABLE;
+                }
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(startPart);
+                end = endPart.isEmpty() ? length - 1 : Math.min(Long.parseLong(endPart), length - 1);
+            }
+            if (start < 0 || start >= length || end < start) {
+                return ByteRange.UNSATISFIABLE;
+            }
+            return new ByteRange(start, end);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 字节区间，start和end均包含
+     */
+    public static class ByteRange {
+        public static final ByteRange UNSATISFIABLE = new ByteRange(-1, -1);
+
+        private final long start;
+        private final long end;
+
+        public ByteRange(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        public long getStart() {
+            return start;
+        }
+
+        public long getEnd() {
+            return end;
+        }
+
+        public long getLength() {
+            return end - start + 1;
+        }
+
+        /**
+         * 生成Content-Range响应头
+         */
+        public String toContentRange(long total) {
+            return "bytes " + start + "-" + end + "/" + total;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.www.util;
+
+import java.util.regex.Pattern;
+
+/**
+ * 图片地址工具类，生成按尺寸访问的衍生图地址
+ */
+public class ImageUrlUtil {
+    /**
+     * 图片访问地址前缀
+     */
+    public static final String URL_PREFIX = "/api/images/";
+
+    /**
+     * 缩略图，用于列表封面和头像
+     */
+    public static final String THUMB = "thumb";
+
+    /**
+     * 中等尺寸，用于正文图片
+     */
+    public static final String MEDIUM = "medium";
+
+    /**
+     * 原图
+     */
+    public static final String ORIGINAL = "original";
+
+    private static final Pattern IMAGE_URL_PATTERN = Pattern.compile(Pattern.quote(URL_PREFIX) + "[0-9a-f]{64}");
+
+    /**
+     * 将图片存储地址转换为指定尺寸的地址，不是图片存储地址（外链、Base64等）时原样返回
+     */
+    public static String sized(String url, String size) {
+        if (url == null || ORIGINAL.equals(size) || !IMAGE_URL_PATTERN.matcher(url).matches()) {
+            return url;
+        }
+        return url + "/" + size;
+    }
+}
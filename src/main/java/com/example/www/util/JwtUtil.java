@@ -2,9 +2,18 @@ package com.example.www.util;
 
 // 引入JWT相关类
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * JWT工具类，用于生成和解析Token
@@ -14,6 +23,17 @@ public class JwtUtil {
     private static final String SECRET_KEY = "mySecretKey123456";
     // Token有效期（毫秒），这里为1天
     private static final long EXPIRATION = 86400000; // 1天
+    // 已验证Token缓存的最大条数
+    private static final int MAX_CACHE_SIZE = 10000;
+
+    // 配置好的解析器，解析过程不修改其状态，可在线程间复用
+    private static final JwtParser PARSER = Jwts.parser().setSigningKey(SECRET_KEY);
+
+    // 已验证Token缓存：Token摘要 -> 解析结果。读取不加锁，超出上限时由一个线程清理
+    private static final ConcurrentHashMap<String, TokenClaims> CACHE = new ConcurrentHashMap<>(256);
+
+    // 是否有线程正在清理缓存
+    private static final AtomicBoolean EVICTING = new AtomicBoolean();
 
     /**
      * 生成JWT Token（包含用户ID和用户名）
@@ -45,17 +65,87 @@ public class JwtUtil {
                 .compact();
     }
 
+    /**
+     * 从Authorization请求头中取出Token
+     * @param authHeader 请求头的值
+     * @return Token，格式不正确时返回null
+     */
+    public static String resolveToken(String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return null;
+        }
+        String token = authHeader.substring(7).trim();
+        return token.isEmpty() ? null : token;
+    }
+
+    /**
+     * 验证Token并返回其中的用户信息，不抛出异常
+     * 验证通过的Token会缓存到过期为止，重复请求不再验签和解析JSON
+     * @param token JWT Token
+     * @return 用户信息，Token无效或已过期时返回空
+     */
+    public static Optional<TokenClaims> verify(String token) {
+        if (!looksLikeJwt(token)) {
+            return Optional.empty();
+        }
+        String key = digest(token);
+        long now = System.currentTimeMillis();
+        TokenClaims cached = CACHE.get(key);
+        if (cached != null) {
+            if (!cached.isExpired(now)) {
+                return Optional.of(cached);
+            }
+            CACHE.remove(key, cached);
+            return Optional.empty();
+        }
+
+        TokenClaims claims;
+        try {
+            Claims body = PARSER.parseClaimsJws(token).getBody();
+            Date expiration = body.getExpiration();
+            claims = new TokenClaims(
+                    body.get("userId", Long.class),
+                    body.getSubject(),
+                    expiration != null ? expiration.getTime() : Long.MAX_VALUE);
+        } catch (Exception e) {
+            // 签名错误、已过期或格式错误
+            return Optional.empty();
+        }
+        CACHE.put(key, claims);
+        if (CACHE.size() > MAX_CACHE_SIZE) {
+            evict(now);
+        }
+        return Optional.of(claims);
+    }
+
+    /**
+     * 缓存超出上限时先删除已过期的Token，仍然超出时任意删除条目直到低于上限的90%。
+     * 同一时间只有一个线程清理，其他线程直接返回
+     */
+    private static void evict(long now) {
+        if (!EVICTING.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            CACHE.values().removeIf(claims -> claims.isExpired(now));
+            Iterator<String> keys = CACHE.keySet().iterator();
+            int target = MAX_CACHE_SIZE * 9 / 10;
+            while (CACHE.size() > target && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        } finally {
+            EVICTING.set(false);
+        }
+    }
+
     /**
      * 从Token中解析用户名
      * @param token JWT Token
-     * @return 用户名
+     * @return 用户名，Token无效时返回null
      */
     public static String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .setSigningKey(SECRET_KEY) // 设置签名密钥
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.getSubject(); // 获取主题（用户名）
+        return verify(token).map(TokenClaims::getUsername).orElse(null);
     }
 
     /**
@@ -64,16 +154,8 @@ public class JwtUtil {
      * @return 用户ID，如果token中没有用户ID则返回null
      */
     public static Long getUserIdFromToken(String token) {
-        try {
-            Claims claims = Jwts.parser()
-                    .setSigningKey(SECRET_KEY) // 设置签名密钥
-                    .parseClaimsJws(token)
-                    .getBody();
-            return claims.get("userId", Long.class); // 获取用户ID
-        } catch (Exception e) {
-            // 如果token中没有用户ID（旧版本token），返回null
-            return null;
-        }
+        // 如果token中没有用户ID（旧版本token），返回null
+        return verify(token).map(TokenClaims::getUserId).orElse(null);
     }
 
     /**
@@ -84,4 +166,64 @@ public class JwtUtil {
     public static boolean hasUserId(String token) {
         return getUserIdFromToken(token) != null;
     }
-} 
\ No newline at end of file
+
+    /**
+     * 快速排除明显不是JWT的字符串（必须是三段），避免进入解析器抛出异常
+     */
+    private static boolean looksLikeJwt(String token) {
+        if (token == null || token.isEmpty()) {
+            return false;
+        }
+        int first = token.indexOf('.');
+        int second = first < 0 ? -1 : token.indexOf('.', first + 1);
+        return first > 0 && second > first + 1 && second < token.length() - 1
+                && token.indexOf('.', second + 1) < 0;
+    }
+
+    /**
+     * 缓存键使用Token的SHA-256摘要，避免在内存中长期保存Token原文
+     */
+    private static String digest(String token) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] hash = md.digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 已验证Token中的用户信息
+     */
+    public static class TokenClaims {
+        private final Long userId;
+        private final String username;
+        private final long expiresAt;
+
+        public TokenClaims(Long userId, String username, long expiresAt) {
+            this.userId = userId;
+            this.username = username;
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * 用户ID，旧版本Token中为null
+         */
+        public Long getUserId() {
+            return userId;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+
+        public boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.www.util;
+
+import java.util.Map;
+
+/**
+ * 大模型token数估算工具类。
+ * 中日韩字符按每字1个token计算，其他字符按每4个字符1个token计算，结果偏保守
+ */
+public class TokenEstimateUtil {
+    // 每条消息的角色和格式开销
+    private static final int MESSAGE_OVERHEAD = 4;
+
+    /**
+     * 估算文本的token数
+     */
+    public static int estimate(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        int cjk = 0;
+        int other = 0;
+        for (int i = 0; i < text.length(); ) {
+            int cp = text.codePointAt(i);
+            if (isCjk(cp)) {
+                cjk++;
+            } else {
+                other++;
+            }
+            i += Character.charCount(cp);
+        }
+        return cjk + (other + 3) / 4;
+    }
+
+    /**
+     * 估算一条对话消息的token数，包含角色开销
+     */
+    public static int estimate(Map<String, Object> message) {
+        Object content = message.get("content");
+        return MESSAGE_OVERHEAD + estimate(content == null ? null : content.toString());
+    }
+
+    private static boolean isCjk(int cp) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL
+                || (cp >= 0x3000 && cp <= 0x303F)   // 中日韩标点
+                || (cp >= 0xFF00 && cp <= 0xFFEF);  // 全角字符
+    }
+}
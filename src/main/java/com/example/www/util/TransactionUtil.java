@@ -0,0 +1,27 @@
+package com.example.www.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 事务工具类
+ */
+public class TransactionUtil {
+
+    /**
+     * 在当前事务提交后执行，事务回滚时不执行；不在事务中时立即执行。
+     * 用于更新首页缓存、全文索引等不会随数据库回滚的内存状态
+     */
+    public static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,67 @@
+-- 基线表结构，与此前 ddl-auto: update 生成的结构一致
+-- 已有数据库通过 baseline-on-migrate 直接标记为版本1，不会重复执行
+
+CREATE TABLE IF NOT EXISTS `user` (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    username VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    phone VARCHAR(255) NOT NULL,
+    email VARCHAR(255) NOT NULL,
+    user_type VARCHAR(255) NOT NULL DEFAULT 'USER',
+    avatar LONGTEXT,
+    PRIMARY KEY (id),
+    UNIQUE KEY uk_user_username (username),
+    UNIQUE KEY uk_user_phone (phone),
+    UNIQUE KEY uk_user_email (email)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE TABLE IF NOT EXISTS article (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    title VARCHAR(200) NOT NULL,
+    content LONGTEXT NOT NULL,
+    cover_image LONGTEXT,
+    author_id BIGINT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    view_count INT NOT NULL,
+    like_count INT NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    updated_at DATETIME(6) NOT NULL,
+    published_at DATETIME(6),
+    review_comment VARCHAR(500),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE TABLE IF NOT EXISTS article_image (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    article_id BIGINT NOT NULL,
+    image_url VARCHAR(500),
+    image_name VARCHAR(200),
+    sort_order INT NOT NULL,
+    image_data LONGTEXT,
+    created_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_article_image_article FOREIGN KEY (article_id) REFERENCES article (id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE TABLE IF NOT EXISTS article_like (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    article_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    UNIQUE KEY uk_article_like_article_user (article_id, user_id),
+    CONSTRAINT fk_article_like_article FOREIGN KEY (article_id) REFERENCES article (id),
+    CONSTRAINT fk_article_like_user FOREIGN KEY (user_id) REFERENCES `user` (id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE TABLE IF NOT EXISTS article_review (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    article_id BIGINT NOT NULL,
+    reviewer_id BIGINT NOT NULL,
+    action VARCHAR(20) NOT NULL,
+    comment VARCHAR(500),
+    created_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_article_review_article FOREIGN KEY (article_id) REFERENCES article (id),
+    CONSTRAINT fk_article_review_reviewer FOREIGN KEY (reviewer_id) REFERENCES `user` (id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
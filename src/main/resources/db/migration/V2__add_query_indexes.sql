@@ -0,0 +1,23 @@
+-- 按 repository 中的实际查询建立复合索引
+-- 等值条件在前，排序列在后，末尾带上id以支持 (时间, id) 游标分页
+
+-- 已发布文章列表、首页缓存、按发布时间的游标分页、countByStatus
+CREATE INDEX idx_article_status_published ON article (status, published_at, id);
+-- 按状态筛选并按创建时间排序（待审核列表、游标分页）
+CREATE INDEX idx_article_status_created ON article (status, created_at, id);
+-- 作者 + 状态筛选；前缀同时覆盖只按作者筛选的分页
+CREATE INDEX idx_article_author_status_created ON article (author_id, status, created_at, id);
+-- 我的文章按创建时间游标分页（不限状态）
+CREATE INDEX idx_article_author_created ON article (author_id, created_at, id);
+-- 不带条件的游标分页
+CREATE INDEX idx_article_created ON article (created_at, id);
+
+-- 用户点赞的文章ID（点赞缓存加载）。(article_id, user_id) 唯一索引新库由V1创建，基线接入的旧库由V6补建
+CREATE INDEX idx_article_like_user_article ON article_like (user_id, article_id);
+
+-- 文章的审核记录、审核员的审核记录，均按时间倒序
+CREATE INDEX idx_article_review_article_created ON article_review (article_id, created_at);
+CREATE INDEX idx_article_review_reviewer_created ON article_review (reviewer_id, created_at);
+
+-- 文章图片按排序号读取
+CREATE INDEX idx_article_image_article_sort ON article_image (article_id, sort_order);
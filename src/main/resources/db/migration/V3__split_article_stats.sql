@@ -0,0 +1,16 @@
+-- 浏览次数和点赞数拆到单独的窄表，计数更新不再锁住和改写包含正文的article行
+
+CREATE TABLE article_stats (
+    article_id BIGINT NOT NULL,
+    view_count INT NOT NULL DEFAULT 0,
+    like_count INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (article_id),
+    CONSTRAINT fk_article_stats_article FOREIGN KEY (article_id) REFERENCES article (id) ON DELETE CASCADE
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+INSERT INTO article_stats (article_id, view_count, like_count)
+SELECT id, view_count, like_count FROM article;
+
+ALTER TABLE article
+    DROP COLUMN view_count,
+    DROP COLUMN like_count;
@@ -0,0 +1,11 @@
+-- 文章图片改用表生成器批量分配ID，使Hibernate可以批量插入
+
+CREATE TABLE id_generator (
+    sequence_name VARCHAR(255) NOT NULL,
+    next_val BIGINT,
+    PRIMARY KEY (sequence_name)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+-- pooled优化器把读到的值作为本次分配区间的上界（区间大小50），起始值需比现有最大ID大50以上
+INSERT INTO id_generator (sequence_name, next_val)
+SELECT 'article_image', COALESCE(MAX(id), 0) + 51 FROM article_image;
@@ -0,0 +1,13 @@
+-- 文章Markdown预渲染结果：HTML、目录、纯文本摘要和字数，正文变化时按source_hash重新渲染
+
+CREATE TABLE article_render (
+    article_id BIGINT NOT NULL,
+    source_hash VARCHAR(64) NOT NULL,
+    content_html LONGTEXT,
+    toc TEXT,
+    excerpt VARCHAR(500),
+    word_count INT NOT NULL DEFAULT 0,
+    rendered_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (article_id),
+    CONSTRAINT fk_article_render_article FOREIGN KEY (article_id) REFERENCES article (id) ON DELETE CASCADE
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
@@ -0,0 +1,26 @@
+-- 通过 baseline-on-migrate 接入的旧库跳过了V1，可能没有 (article_id, user_id) 唯一索引，
+-- 点赞去重依赖该约束：先删除重复点赞，再在缺少唯一索引时补建
+
+DELETE l1 FROM article_like l1
+JOIN article_like l2 ON l1.article_id = l2.article_id AND l1.user_id = l2.user_id AND l1.id > l2.id;
+
+-- 旧库中可能已有 Hibernate 以其他名字创建的同列唯一索引，按列判断
+SET @has_unique_key := (
+    SELECT COUNT(*) FROM (
+        SELECT index_name
+        FROM information_schema.statistics
+        WHERE table_schema = DATABASE() AND table_name = 'article_like' AND non_unique = 0
+        GROUP BY index_name
+        HAVING GROUP_CONCAT(column_name ORDER BY seq_in_index) = 'article_id,user_id'
+    ) t
+);
+SET @ddl := IF(@has_unique_key = 0,
+    'ALTER TABLE article_like ADD CONSTRAINT uk_article_like_article_user UNIQUE (article_id, user_id)',
+    'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 删除重复记录后按点赞表重新校准点赞数
+UPDATE article_stats s
+SET s.like_count = (SELECT COUNT(*) FROM article_like l WHERE l.article_id = s.article_id);
@@ -0,0 +1,3 @@
+-- 详情页直接使用已保存的渲染结果，不再按正文校验。
+-- 清空解析图片占位符之前保存的结果，访问时按新规则重新渲染
+DELETE FROM article_render;
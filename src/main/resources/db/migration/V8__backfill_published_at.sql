@@ -0,0 +1,3 @@
+-- 创建或修改时直接设为APPROVED的旧文章没有发布时间，按发布时间的游标分页会漏掉它们。
+-- 用创建时间补齐，之后由实体在保存时保证已发布文章都有发布时间
+UPDATE article SET published_at = created_at WHERE status = 'APPROVED' AND published_at IS NULL;
@@ -0,0 +1,55 @@
+package com.example.www;
+
+import com.example.www.service.SparkAIService;
+import com.example.www.support.IntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.http.HttpClient;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * virtual-threads 配置启用后，异步任务和星火API的HttpClient使用虚拟线程
+ */
+@ActiveProfiles("virtual-threads")
+class VirtualThreadsProfileTest extends IntegrationTest {
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private Executor applicationTaskExecutor;
+
+    @Autowired
+    private SparkAIService sparkAIService;
+
+    @Test
+    void profileHandsTaskExecutorToHttpClient() {
+        assertThat(virtualThreads).isTrue();
+        HttpClient httpClient = (HttpClient) ReflectionTestUtils.getField(sparkAIService, "httpClient");
+        assertThat(httpClient.executor()).containsSame(applicationTaskExecutor);
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    void taskExecutorRunsOnVirtualThreads() throws Exception {
+        // 以Java 17编译，通过反射调用Java 21的Thread.isVirtual
+        Boolean virtual = CompletableFuture.supplyAsync(() -> {
+            try {
+                return (Boolean) Thread.class.getMethod("isVirtual").invoke(Thread.currentThread());
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        }, applicationTaskExecutor).get();
+        assertThat(virtual).isTrue();
+    }
+}
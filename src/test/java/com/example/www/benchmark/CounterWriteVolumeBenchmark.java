@@ -0,0 +1,116 @@
+package com.example.www.benchmark;
+
+import com.example.www.service.ArticleCounterService;
+import com.example.www.support.IntegrationTest;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 浏览计数的数据库写入量对比：
+ * 旧结构在包含正文的宽表上逐次UPDATE、article_stats窄表逐次UPDATE、内存累加后批量写回。
+ * 统计语句数、InnoDB redo日志字节数和耗时。
+ * 运行：mvn -Pbenchmark test -Dtest=CounterWriteVolumeBenchmark
+ */
+@Tag("benchmark")
+class CounterWriteVolumeBenchmark extends IntegrationTest {
+    private static final int ARTICLES = 200;
+    private static final int VIEWS = 10_000;
+    private static final int CONTENT_BYTES = 6_000;
+
+    @Autowired
+    private ArticleCounterService articleCounterService;
+
+    @Test
+    void compareCounterWriteVolume() {
+        Long authorId = insertUser("bench021_" + System.nanoTime(), "USER");
+        String content = "x".repeat(CONTENT_BYTES);
+        // 拆表前的结构：计数和正文在同一行
+        jdbcTemplate.execute("DROP TABLE IF EXISTS bench_article_legacy");
+        jdbcTemplate.execute("CREATE TABLE bench_article_legacy (id BIGINT NOT NULL AUTO_INCREMENT, content LONGTEXT NOT NULL, "
+                + "view_count INT NOT NULL DEFAULT 0, PRIMARY KEY (id)) ENGINE = InnoDB");
+        List<Long> legacyIds = new ArrayList<>();
+        List<Long> articleIds = new ArrayList<>();
+        for (int i = 0; i < ARTICLES; i++) {
+            jdbcTemplate.update("INSERT INTO bench_article_legacy (content) VALUES (?)", content);
+            legacyIds.add(jdbcTemplate.queryForObject("SELECT LAST_INSERT_ID()", Long.class));
+            Long articleId = insertArticle(authorId, "写入量" + i, "APPROVED");
+            jdbcTemplate.update("UPDATE article SET content = ? WHERE id = ?", content, articleId);
+            articleIds.add(articleId);
+        }
+        int[] views = new int[VIEWS];
+        Random random = new Random(21);
+        for (int i = 0; i < VIEWS; i++) {
+            views[i] = random.nextInt(ARTICLES);
+        }
+
+        Result legacy = measure("wide row, UPDATE per view", () -> {
+            for (int index : views) {
+                jdbcTemplate.update("UPDATE bench_article_legacy SET view_count = view_count + 1 WHERE id = ?", legacyIds.get(index));
+            }
+            return VIEWS;
+        });
+        Result narrow = measure("article_stats, UPDATE per view", () -> {
+            for (int index : views) {
+                jdbcTemplate.update("UPDATE article_stats SET view_count = view_count + 1 WHERE article_id = ?", articleIds.get(index));
+            }
+            return VIEWS;
+        });
+        Result buffered = measure("buffered + batched flush", () -> {
+            for (int index : views) {
+                articleCounterService.incrementView(articleIds.get(index));
+            }
+            articleCounterService.flush();
+            return (ARTICLES + 499) / 500;
+        });
+
+        System.out.println(legacy);
+        System.out.println(narrow);
+        System.out.println(buffered);
+        jdbcTemplate.execute("DROP TABLE bench_article_legacy");
+
+        Integer total = jdbcTemplate.queryForObject("SELECT SUM(view_count) FROM article_stats WHERE article_id IN ("
+                + String.join(",", articleIds.stream().map(String::valueOf).toList()) + ")", Integer.class);
+        assertThat(total).isEqualTo(VIEWS * 2);
+        assertThat(buffered.redoBytes).isLessThan(narrow.redoBytes);
+    }
+
+    private Result measure(String name, java.util.function.IntSupplier work) {
+        long redo = status("Innodb_os_log_written");
+        long start = System.nanoTime();
+        int statements = work.getAsInt();
+        long elapsed = System.nanoTime() - start;
+        return new Result(name, statements, status("Innodb_os_log_written") - redo, elapsed);
+    }
+
+    private long status(String name) {
+        return jdbcTemplate.queryForObject("SHOW GLOBAL STATUS LIKE ?", (rs, i) -> rs.getLong(2), name);
+    }
+
+    private static final class Result {
+        final String name;
+        final int statements;
+        final long redoBytes;
+        final long nanos;
+
+        Result(String name, int statements, long redoBytes, long nanos) {
+            this.name = name;
+            this.statements = statements;
+            this.redoBytes = redoBytes;
+            this.nanos = nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%s: statements=%d redo=%dKB elapsed=%dms",
+                    name, statements, redoBytes / 1024, nanos / 1_000_000);
+        }
+    }
+}
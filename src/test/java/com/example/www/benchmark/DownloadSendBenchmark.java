@@ -0,0 +1,144 @@
+package com.example.www.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 测速下载两种发送方式的JMH基准：从堆内缓冲区写出（经输出流复制到socket缓冲区）
+ * 和FileChannel.transferTo（Tomcat sendfile使用的零拷贝方式）。
+ * 每次操作经本机回环连接发送64MB，由接收线程读取丢弃，结果换算为Gbit/s与10GbE对比。
+ * 运行：mvn -Pbenchmark test -Dtest=DownloadSendBenchmark
+ */
+@Tag("benchmark")
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class DownloadSendBenchmark {
+    private static final int BUFFER_SIZE = 4 * 1024 * 1024;
+    private static final long BYTES_PER_OP = 64L * 1024 * 1024;
+    private static final double TEN_GBE_GBITS = 10.0;
+
+    private byte[] buffer;
+    private File file;
+    private FileChannel fileChannel;
+    private ServerSocketChannel server;
+    private SocketChannel sender;
+    private OutputStream senderStream;
+    private Thread receiver;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        buffer = new byte[BUFFER_SIZE];
+        new Random(1).nextBytes(buffer);
+        // 与测速文件相同：缓冲区重复写入到文件
+        file = File.createTempFile("speedtest-bench", ".bin");
+        try (OutputStream os = new FileOutputStream(file)) {
+            for (long written = 0; written < BYTES_PER_OP; written += BUFFER_SIZE) {
+                os.write(buffer);
+            }
+        }
+        fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+
+        server = ServerSocketChannel.open().bind(new InetSocketAddress("127.0.0.1", 0));
+        sender = SocketChannel.open(server.getLocalAddress());
+        sender.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        senderStream = sender.socket().getOutputStream();
+        SocketChannel accepted = server.accept();
+        receiver = new Thread(() -> drain(accepted), "speedtest-receiver");
+        receiver.setDaemon(true);
+        receiver.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        sender.close();
+        receiver.join(5000);
+        server.close();
+        fileChannel.close();
+        file.delete();
+    }
+
+    /**
+     * 从堆内缓冲区循环写出，与下载接口不使用sendfile时相同
+     */
+    @Benchmark
+    public long heapBufferWrite() throws IOException {
+        long remaining = BYTES_PER_OP;
+        while (remaining > 0) {
+            int n = (int) Math.min(buffer.length, remaining);
+            senderStream.write(buffer, 0, n);
+            remaining -= n;
+        }
+        return BYTES_PER_OP;
+    }
+
+    /**
+     * 从文件直接发送到socket，数据不经过Java堆
+     */
+    @Benchmark
+    public long fileTransferTo() throws IOException {
+        long position = 0;
+        while (position < BYTES_PER_OP) {
+            position += fileChannel.transferTo(position, BYTES_PER_OP - position, sender);
+        }
+        return BYTES_PER_OP;
+    }
+
+    private static void drain(SocketChannel channel) {
+        ByteBuffer sink = ByteBuffer.allocateDirect(1024 * 1024);
+        try (SocketChannel c = channel) {
+            while (c.read(sink) >= 0) {
+                sink.clear();
+            }
+        } catch (IOException ignored) {
+            // 发送端关闭
+        }
+    }
+
+    @Test
+    void run() throws Exception {
+        Collection<RunResult> results = new Runner(new OptionsBuilder()
+                .include(DownloadSendBenchmark.class.getName())
+                .build()).run();
+        for (RunResult result : results) {
+            double opsPerSecond = result.getPrimaryResult().getScore();
+            double gbits = opsPerSecond * BYTES_PER_OP * 8 / 1e9;
+            System.out.println(String.format(Locale.ROOT, "%s: %.2f Gbit/s (%s 10GbE)",
+                    result.getParams().getBenchmark(), gbits, gbits >= TEN_GBE_GBITS ? "saturates" : "below"));
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.www.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 记录请求耗时并计算分位数，线程安全
+ */
+public class LatencyRecorder {
+    private final String name;
+    private final List<Long> nanos = new ArrayList<>();
+
+    public LatencyRecorder(String name) {
+        this.name = name;
+    }
+
+    public synchronized void record(long elapsedNanos) {
+        nanos.add(elapsedNanos);
+    }
+
+    public synchronized int count() {
+        return nanos.size();
+    }
+
+    /**
+     * 第p百分位的耗时（毫秒）
+     */
+    public synchronized double percentileMillis(double p) {
+        if (nanos.isEmpty()) {
+            return 0;
+        }
+        List<Long> sorted = new ArrayList<>(nanos);
+        Collections.sort(sorted);
+        int index = (int) Math.ceil(p / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1))) / 1_000_000.0;
+    }
+
+    public String summary() {
+        return String.format(Locale.ROOT, "%s: n=%d p50=%.1fms p99=%.1fms max=%.1fms",
+                name, count(), percentileMillis(50), percentileMillis(99), percentileMillis(100));
+    }
+}
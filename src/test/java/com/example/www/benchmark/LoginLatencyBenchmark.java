@@ -0,0 +1,100 @@
+package com.example.www.benchmark;
+
+import com.example.www.support.IntegrationTest;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 登录压测：大量并发登录时记录登录和普通接口的p50/p99。
+ * BCrypt在独立线程池中计算，普通接口的延迟不应随登录并发上升；超出哈希队列的登录返回429。
+ * 运行：mvn -Pbenchmark test -Dtest=LoginLatencyBenchmark
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class LoginLatencyBenchmark extends IntegrationTest {
+    private static final int LOGIN_CLIENTS = 32;
+    private static final int LOGINS_PER_CLIENT = 10;
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void loginLatencyUnderConcurrentLogins() throws Exception {
+        String username = "bench013_" + System.nanoTime();
+        Long userId = insertUser(username, "USER");
+        jdbcTemplate.update("UPDATE `user` SET password = ? WHERE id = ?", new BCryptPasswordEncoder(10).encode("password"), userId);
+
+        HttpClient client = HttpClient.newBuilder().executor(Executors.newFixedThreadPool(8)).build();
+        String loginBody = "{\"username\":\"" + username + "\",\"password\":\"password\"}";
+        LatencyRecorder login = new LatencyRecorder("login");
+        LatencyRecorder list = new LatencyRecorder("article list during logins");
+        Map<Integer, AtomicInteger> statuses = new ConcurrentHashMap<>();
+        AtomicBoolean running = new AtomicBoolean(true);
+
+        ExecutorService pool = Executors.newFixedThreadPool(LOGIN_CLIENTS + 1);
+        try {
+            // 登录压测期间持续访问一个不做哈希计算的接口
+            Future<?> prober = pool.submit(() -> {
+                while (running.get()) {
+                    long start = System.nanoTime();
+                    send(client, HttpRequest.newBuilder(uri("/api/article/list?status=BENCH")).GET().build());
+                    list.record(System.nanoTime() - start);
+                }
+                return null;
+            });
+            List<Future<?>> clients = new ArrayList<>();
+            for (int c = 0; c < LOGIN_CLIENTS; c++) {
+                clients.add(pool.submit(() -> {
+                    for (int i = 0; i < LOGINS_PER_CLIENT; i++) {
+                        long start = System.nanoTime();
+                        int status = send(client, HttpRequest.newBuilder(uri("/api/user/login"))
+                                .header("Content-Type", "application/json")
+                                .POST(HttpRequest.BodyPublishers.ofString(loginBody)).build());
+                        login.record(System.nanoTime() - start);
+                        statuses.computeIfAbsent(status, k -> new AtomicInteger()).incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : clients) {
+                future.get();
+            }
+            running.set(false);
+            prober.get();
+        } finally {
+            pool.shutdown();
+        }
+
+        System.out.println(login.summary());
+        System.out.println(list.summary());
+        System.out.println("login status counts: " + statuses);
+        assertThat(statuses.keySet()).as("只允许成功或429").isSubsetOf(200, 429);
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static int send(HttpClient client, HttpRequest request) throws Exception {
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.www.benchmark;
+
+import com.example.www.support.IntegrationTest;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 文章接口和网络工具接口的混合压测，比较平台线程池与虚拟线程的吞吐量和p99。
+ * 工具请求经 /api/proxy 访问一个固定延迟的本地上游，模拟慢的外部调用；
+ * Tomcat线程数限制为 {@link #TOMCAT_THREADS}，平台线程模式下并发超过该值的请求需要排队，虚拟线程模式不受此限制。
+ * 运行：
+ * mvn -Pbenchmark test -Dtest=MixedTrafficBenchmark
+ * mvn -Pjava21,benchmark test -Dtest=MixedTrafficBenchmark -Dspring.profiles.active=virtual-threads
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "server.tomcat.threads.max=" + MixedTrafficBenchmark.TOMCAT_THREADS)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class MixedTrafficBenchmark extends IntegrationTest {
+    static final int TOMCAT_THREADS = 32;
+    private static final int TOOL_CLIENTS = 128;
+    private static final int ARTICLE_CLIENTS = 8;
+    private static final int REQUESTS_PER_CLIENT = 20;
+    private static final int UPSTREAM_DELAY_MS = 200;
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private HttpServer upstream;
+
+    @BeforeAll
+    void startUpstream() throws Exception {
+        upstream = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        upstream.setExecutor(Executors.newCachedThreadPool());
+        byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+        upstream.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(UPSTREAM_DELAY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.getResponseHeaders().add("Content-Type", "text/plain");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        upstream.start();
+    }
+
+    @AfterAll
+    void stopUpstream() {
+        upstream.stop(0);
+    }
+
+    @Test
+    void mixedArticleAndToolTraffic() throws Exception {
+        Long authorId = insertUser("bench018_" + System.nanoTime(), "USER");
+        for (int i = 0; i < 20; i++) {
+            insertArticle(authorId, "压测文章" + i, "APPROVED");
+        }
+        String slowUrl = URLEncoder.encode("http://127.0.0.1:" + upstream.getAddress().getPort() + "/slow",
+                StandardCharsets.UTF_8);
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newFixedThreadPool(8))
+                .build();
+        LatencyRecorder tools = new LatencyRecorder("proxy (" + UPSTREAM_DELAY_MS + "ms upstream)");
+        LatencyRecorder articles = new LatencyRecorder("article list");
+        Map<Integer, AtomicInteger> statuses = new ConcurrentHashMap<>();
+
+        ExecutorService pool = Executors.newFixedThreadPool(TOOL_CLIENTS + ARTICLE_CLIENTS);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> clients = new ArrayList<>();
+            for (int c = 0; c < TOOL_CLIENTS; c++) {
+                clients.add(pool.submit(() -> run(client, "/api/proxy?url=" + slowUrl, tools, statuses)));
+            }
+            for (int c = 0; c < ARTICLE_CLIENTS; c++) {
+                clients.add(pool.submit(() -> run(client, "/api/article/list?page=1&size=10", articles, statuses)));
+            }
+            for (Future<?> future : clients) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println("mode: " + (virtualThreads ? "virtual threads" : "platform threads, max " + TOMCAT_THREADS));
+        System.out.println(tools.summary());
+        System.out.println(articles.summary());
+        System.out.println(String.format(Locale.ROOT, "throughput: %.1f req/s (%d requests in %.1fs)",
+                (tools.count() + articles.count()) / seconds, tools.count() + articles.count(), seconds));
+        System.out.println("status counts: " + statuses);
+        assertThat(statuses.keySet()).containsOnly(200);
+    }
+
+    private Void run(HttpClient client, String path, LatencyRecorder recorder,
+                     Map<Integer, AtomicInteger> statuses) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET().build();
+        for (int i = 0; i < REQUESTS_PER_CLIENT; i++) {
+            long begin = System.nanoTime();
+            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            recorder.record(System.nanoTime() - begin);
+            statuses.computeIfAbsent(status, k -> new AtomicInteger()).incrementAndGet();
+        }
+        return null;
+    }
+}
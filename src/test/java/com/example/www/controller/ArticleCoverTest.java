@@ -0,0 +1,62 @@
+package com.example.www.controller;
+
+import com.example.www.support.IntegrationTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 封面接口只返回识别出的图片格式，只跳转到http(s)地址和本站路径
+ */
+class ArticleCoverTest extends IntegrationTest {
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 0};
+
+    @Test
+    void servesSniffedImageTypeInsteadOfDeclaredType() throws Exception {
+        Long id = articleWithCover("data:text/html;base64," + Base64.getEncoder().encodeToString(PNG));
+        mockMvc.perform(get("/api/article/" + id + "/cover"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "image/png"))
+                .andExpect(header().string("X-Content-Type-Options", "nosniff"))
+                .andExpect(content().bytes(PNG));
+    }
+
+    @Test
+    void rejectsNonImageDataUrls() throws Exception {
+        String html = Base64.getEncoder().encodeToString("<script>alert(1)</script>".getBytes());
+        String svg = Base64.getEncoder().encodeToString("<svg onload=alert(1)></svg>".getBytes());
+        expectNotFound(articleWithCover("data:text/html;base64," + html));
+        expectNotFound(articleWithCover("data:image/svg+xml;base64," + svg));
+    }
+
+    @Test
+    void redirectsOnlyToHttpAndSameOriginPaths() throws Exception {
+        mockMvc.perform(get("/api/article/" + articleWithCover("https://cdn.example.com/a.png") + "/cover"))
+                .andExpect(status().isFound())
+                .andExpect(header().string("Location", "https://cdn.example.com/a.png"));
+        mockMvc.perform(get("/api/article/" + articleWithCover("/api/images/abc") + "/cover"))
+                .andExpect(status().isFound())
+                .andExpect(header().string("Location", "/api/images/abc"));
+
+        expectNotFound(articleWithCover("//evil.example.com/a.png"));
+        expectNotFound(articleWithCover("/\\evil.example.com/a.png"));
+        expectNotFound(articleWithCover("/api/images/a b.png"));
+        expectNotFound(articleWithCover("javascript:alert(1)"));
+    }
+
+    private void expectNotFound(Long id) throws Exception {
+        mockMvc.perform(get("/api/article/" + id + "/cover")).andExpect(status().isNotFound());
+    }
+
+    private Long articleWithCover(String cover) {
+        Long authorId = insertUser("cover002_" + System.nanoTime(), "USER");
+        Long id = insertArticle(authorId, "封面", "APPROVED");
+        jdbcTemplate.update("UPDATE article SET cover_image = ? WHERE id = ?", cover, id);
+        return id;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.www.controller;
+
+import com.example.www.support.IntegrationTest;
+import com.example.www.util.JwtUtil;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import java.sql.Timestamp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 详情页直接使用保存的渲染结果，修改正文后返回新的渲染结果
+ */
+class ArticleDetailRenderTest extends IntegrationTest {
+
+    @Test
+    void detailReusesStoredRenderUntilContentChanges() throws Exception {
+        Long authorId = insertUser("detail025_author", "USER");
+        Long articleId = insertArticle(authorId, "详情", "APPROVED");
+        jdbcTemplate.update("UPDATE article SET content = '# 第一版' WHERE id = ?", articleId);
+        jdbcTemplate.update("INSERT INTO article_image (id, article_id, image_url, sort_order, created_at) "
+                + "VALUES (?, ?, '/api/images/x', 0, NOW(6))", 3_000_000L + articleId, articleId);
+
+        // 没有渲染结果时首次访问渲染并保存
+        mockMvc.perform(get("/api/article/{id}", articleId).param("html", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.contentHtml").value("<h1 id=\"第一版\">第一版</h1>\n"));
+        Timestamp renderedAt = renderedAt(articleId);
+        assertThat(renderedAt).isNotNull();
+
+        Statistics statistics = resetStatistics();
+        mockMvc.perform(get("/api/article/{id}", articleId).param("html", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.toc[0].text").value("第一版"));
+        assertThat(statistics.getEntityInsertCount()).isZero();
+        assertThat(statistics.getEntityUpdateCount()).isZero();
+        // 图片只查询一次
+        assertThat(statistics.getEntityStatistics("com.example.www.entity.ArticleImage").getLoadCount()).isEqualTo(1);
+        assertThat(renderedAt(articleId)).isEqualTo(renderedAt);
+
+        mockMvc.perform(put("/api/article/{id}", articleId)
+                        .header("Authorization", "Bearer " + JwtUtil.generateToken(authorId, "detail025_author"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"content\":\"# 第二版\"}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/article/{id}", articleId).param("html", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.contentHtml").value("<h1 id=\"第二版\">第二版</h1>\n"));
+    }
+
+    private Timestamp renderedAt(Long articleId) {
+        return jdbcTemplate.query("SELECT rendered_at FROM article_render WHERE article_id = ?",
+                rs -> rs.next() ? rs.getTimestamp(1) : null, articleId);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.www.controller;
+
+import com.example.www.support.IntegrationTest;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 文章列表每页的SQL语句数不随文章数和作者数增长
+ */
+class ArticleListQueryCountTest extends IntegrationTest {
+
+    @Test
+    void listPageLoadsAuthorsInOneQuery() throws Exception {
+        String status = "LIST001";
+        for (int i = 0; i < 20; i++) {
+            Long authorId = insertUser("list001_author_" + i, "USER");
+            insertArticle(authorId, "文章" + i, status);
+        }
+
+        Statistics statistics = resetStatistics();
+        mockMvc.perform(get("/api/article/list").param("status", status).param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.records.length()").value(20))
+                .andExpect(jsonPath("$.records[0].authorName").isNotEmpty())
+                .andExpect(jsonPath("$.records[19].authorName").isNotEmpty());
+
+        // 分页查询、总数查询、批量查询作者各一条
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.www.controller;
+
+import com.example.www.support.IntegrationTest;
+import com.example.www.util.JwtUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 图片上传需要登录，type只接受cover和content
+ */
+class ImageUploadTest extends IntegrationTest {
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 0};
+
+    private final MockMultipartFile file = new MockMultipartFile("file", "a.png", "image/png", PNG);
+
+    @Test
+    void anonymousUploadIsRejected() throws Exception {
+        mockMvc.perform(multipart("/api/upload/image").file(file))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void unknownTypeIsRejected() throws Exception {
+        mockMvc.perform(multipart("/api/upload/image").file(file).param("type", "<b>x</b>")
+                        .header("Authorization", "Bearer " + token()))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void loggedInUploadIsStored() throws Exception {
+        mockMvc.perform(multipart("/api/upload/image").file(file).param("type", "cover")
+                        .header("Authorization", "Bearer " + token()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.type").value("cover"))
+                .andExpect(jsonPath("$.url").isNotEmpty());
+    }
+
+    private String token() {
+        Long userId = insertUser("upload003_" + System.nanoTime(), "USER");
+        return JwtUtil.generateToken(userId, "upload003");
+    }
+}
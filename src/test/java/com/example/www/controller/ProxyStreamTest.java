@@ -0,0 +1,112 @@
+package com.example.www.controller;
+
+import com.example.www.support.IntegrationTest;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 流式代理的Server-Timing trailer：只在分块传输且请求声明 TE: trailers 时发送
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ProxyStreamTest extends IntegrationTest {
+    private static final String BODY = "hello proxy";
+
+    @LocalServerPort
+    private int port;
+
+    private HttpServer upstream;
+
+    @BeforeAll
+    void startUpstream() throws Exception {
+        upstream = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+        // 响应长度为0表示分块传输
+        upstream.createContext("/chunked", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "text/plain");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        upstream.createContext("/fixed", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "text/plain");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        upstream.start();
+    }
+
+    @AfterAll
+    void stopUpstream() {
+        upstream.stop(0);
+    }
+
+    @Test
+    void chunkedResponseCarriesTotalTrailerWhenRequested() throws Exception {
+        String response = proxy("/chunked", "HTTP/1.1", "TE: trailers\r\n");
+        assertThat(response).startsWith("HTTP/1.1 200");
+        assertThat(headers(response)).containsIgnoringCase("Transfer-Encoding: chunked");
+        assertThat(body(response)).contains(BODY).containsIgnoringCase("Server-Timing: total;dur=");
+    }
+
+    @Test
+    void chunkedResponseHasNoTrailerWithoutTe() throws Exception {
+        String response = proxy("/chunked", "HTTP/1.1", "");
+        assertThat(body(response)).contains(BODY).doesNotContainIgnoringCase("total;dur=");
+    }
+
+    @Test
+    void http10RequestGetsNoTrailer() throws Exception {
+        String response = proxy("/chunked", "HTTP/1.0", "TE: trailers\r\n");
+        assertThat(response).startsWith("HTTP/1.1 200");
+        assertThat(body(response)).isEqualTo(BODY);
+    }
+
+    @Test
+    void contentLengthResponseHasNoTrailer() throws Exception {
+        String response = proxy("/fixed", "HTTP/1.1", "TE: trailers\r\n");
+        assertThat(headers(response)).containsIgnoringCase("Content-Length: " + BODY.length())
+                .containsIgnoringCase("Server-Timing: dns;dur=");
+        assertThat(body(response)).isEqualTo(BODY);
+    }
+
+    /**
+     * 直接通过socket发送请求，读取包括trailer在内的原始响应
+     */
+    private String proxy(String path, String protocol, String extraHeaders) throws Exception {
+        String url = "http://127.0.0.1:" + upstream.getAddress().getPort() + path;
+        try (Socket socket = new Socket("127.0.0.1", port)) {
+            String request = "GET /api/proxy?stream=true&url=" + url + " " + protocol + "\r\n"
+                    + "Host: localhost\r\n" + extraHeaders + "Connection: close\r\n\r\n";
+            socket.getOutputStream().write(request.getBytes(StandardCharsets.US_ASCII));
+            socket.getOutputStream().flush();
+            try (InputStream in = socket.getInputStream()) {
+                return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        }
+    }
+
+    private static String headers(String response) {
+        return response.substring(0, response.indexOf("\r\n\r\n"));
+    }
+
+    private static String body(String response) {
+        return response.substring(response.indexOf("\r\n\r\n") + 4);
+    }
+}
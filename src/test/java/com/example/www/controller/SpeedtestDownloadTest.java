@@ -0,0 +1,80 @@
+package com.example.www.controller;
+
+import com.example.www.support.IntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 测速下载的完整响应和Range区间响应
+ */
+class SpeedtestDownloadTest extends IntegrationTest {
+    // 大于4MB的共享缓冲区，区间会跨过缓冲区的循环边界
+    private static final int SIZE = 5 * 1024 * 1024;
+    private static final int BUFFER_SIZE = 4 * 1024 * 1024;
+
+    @Test
+    void fullDownloadReturnsRequestedSize() throws Exception {
+        byte[] body = download(null, 200);
+        assertThat(body).hasSize(SIZE);
+        // 超出缓冲区的部分从缓冲区开头循环
+        assertThat(Arrays.copyOfRange(body, BUFFER_SIZE, SIZE)).isEqualTo(Arrays.copyOfRange(body, 0, SIZE - BUFFER_SIZE));
+    }
+
+    @Test
+    void rangesMatchTheFullBody() throws Exception {
+        byte[] full = download(null, 200);
+
+        int start = BUFFER_SIZE - 1000;
+        int end = BUFFER_SIZE + 999;
+        MvcResult result = mockMvc.perform(get("/api/speedtest/download")
+                        .param("size", String.valueOf(SIZE))
+                        .header("Range", "bytes=" + start + "-" + end))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes " + start + "-" + end + "/" + SIZE))
+                .andExpect(header().longValue("Content-Length", 2000))
+                .andReturn();
+        assertThat(result.getResponse().getContentAsByteArray()).isEqualTo(Arrays.copyOfRange(full, start, end + 1));
+
+        byte[] suffix = download("bytes=-100", 206);
+        assertThat(suffix).isEqualTo(Arrays.copyOfRange(full, SIZE - 100, SIZE));
+
+        byte[] openEnded = download("bytes=" + (SIZE - 10) + "-", 206);
+        assertThat(openEnded).isEqualTo(Arrays.copyOfRange(full, SIZE - 10, SIZE));
+    }
+
+    @Test
+    void rangeOutsideTheBodyIsUnsatisfiable() throws Exception {
+        mockMvc.perform(get("/api/speedtest/download")
+                        .param("size", String.valueOf(SIZE))
+                        .header("Range", "bytes=" + SIZE + "-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string("Content-Range", "bytes */" + SIZE));
+    }
+
+    @Test
+    void negativeSizeIsRejected() throws Exception {
+        mockMvc.perform(get("/api/speedtest/download").param("size", "-1"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private byte[] download(String range, int expectedStatus) throws Exception {
+        var request = get("/api/speedtest/download").param("size", String.valueOf(SIZE));
+        if (range != null) {
+            request.header("Range", range);
+        }
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(status().is(expectedStatus))
+                .andExpect(header().string("Accept-Ranges", "bytes"))
+                .andReturn();
+        byte[] body = result.getResponse().getContentAsByteArray();
+        assertThat(result.getResponse().getHeader("Content-Length")).isEqualTo(String.valueOf(body.length));
+        return body;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.www.controller;
+
+import com.example.www.support.IntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 真实连接器上的测速下载：落在测速文件内的区间经sendfile发送，超出文件的从缓冲区写出，两者内容一致
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class SpeedtestSendfileTest extends IntegrationTest {
+    private static final int MB = 1024 * 1024;
+    private static final int BUFFER_SIZE = 4 * MB;
+
+    @LocalServerPort
+    private int port;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void sendfileAndBufferedDownloadsServeTheSameBytes() throws Exception {
+        // 测试配置的测速文件为8MB，20MB的完整下载从缓冲区写出
+        HttpResponse<byte[]> buffered = download(20 * MB, null);
+        assertThat(buffered.statusCode()).isEqualTo(200);
+        byte[] expected = buffered.body();
+        assertThat(expected).hasSize(20 * MB);
+        assertThat(Arrays.copyOfRange(expected, BUFFER_SIZE, 20 * MB))
+                .isEqualTo(Arrays.copyOfRange(expected, 0, 16 * MB));
+
+        HttpResponse<byte[]> full = download(5 * MB, null);
+        assertThat(full.statusCode()).isEqualTo(200);
+        assertThat(full.headers().firstValueAsLong("Content-Length")).hasValue(5L * MB);
+        assertThat(full.body()).isEqualTo(Arrays.copyOfRange(expected, 0, 5 * MB));
+
+        // 起点6MB对应文件偏移2MB，跨过缓冲区的循环边界
+        int start = 6 * MB;
+        int end = 9 * MB - 1;
+        HttpResponse<byte[]> range = download(20 * MB, "bytes=" + start + "-" + end);
+        assertThat(range.statusCode()).isEqualTo(206);
+        assertThat(range.headers().firstValue("Content-Range")).hasValue("bytes " + start + "-" + end + "/" + 20 * MB);
+        assertThat(range.body()).isEqualTo(Arrays.copyOfRange(expected, start, end + 1));
+    }
+
+    private HttpResponse<byte[]> download(long size, String range) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(
+                URI.create("http://localhost:" + port + "/api/speedtest/download?size=" + size));
+        if (range != null) {
+            request.header("Range", range);
+        }
+        return client.send(request.GET().build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.www.controller;
+
+import com.example.www.support.IntegrationTest;
+import com.example.www.util.JwtUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 注册、登录和修改密码都在哈希线程池中计算BCrypt，数据库操作不在哈希线程中执行
+ */
+class UserPasswordTest extends IntegrationTest {
+
+    @Test
+    void registerLoginAndChangePassword() throws Exception {
+        String username = "pwd013_" + System.nanoTime();
+        async(post("/api/user/register").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"" + username + "\",\"password\":\"old-pass\",\"phone\":\"" + username
+                        + "\",\"email\":\"" + username + "@test\"}"))
+                .andExpect(status().isOk());
+        String stored = jdbcTemplate.queryForObject("SELECT password FROM `user` WHERE username = ?", String.class, username);
+        assertThat(stored).startsWith("$2a$");
+
+        login(username, "old-pass").andExpect(status().isOk());
+        Long userId = jdbcTemplate.queryForObject("SELECT id FROM `user` WHERE username = ?", Long.class, username);
+        String token = JwtUtil.generateToken(userId, username);
+
+        async(post("/api/user/changePwd").header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON).content("{\"oldPwd\":\"wrong\",\"newPwd\":\"new-pass\"}"))
+                .andExpect(status().isBadRequest());
+        async(post("/api/user/changePwd").header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON).content("{\"oldPwd\":\"old-pass\",\"newPwd\":\"new-pass\"}"))
+                .andExpect(status().isOk());
+
+        login(username, "old-pass").andExpect(status().isBadRequest());
+        login(username, "new-pass").andExpect(status().isOk());
+    }
+
+    @Test
+    void changePasswordRequiresLogin() throws Exception {
+        async(post("/api/user/changePwd").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"oldPwd\":\"a\",\"newPwd\":\"b\"}"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    private ResultActions login(String username, String password) throws Exception {
+        return async(post("/api/user/login").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}"));
+    }
+
+    private ResultActions async(org.springframework.test.web.servlet.RequestBuilder builder) throws Exception {
+        MvcResult result = mockMvc.perform(builder).andExpect(request().asyncStarted()).andReturn();
+        return mockMvc.perform(asyncDispatch(result));
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.www.repository;
+
+import com.example.www.entity.Article;
+import com.example.www.entity.ArticleImage;
+import com.example.www.support.IntegrationTest;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 文章图片通过表生成器预分配ID，saveAll按批插入
+ */
+class ArticleImageBatchInsertTest extends IntegrationTest {
+    private static final int IMAGES = 120;
+
+    @Autowired
+    private ArticleImageRepository articleImageRepository;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void saveAllInsertsInBatches() {
+        Long authorId = insertUser("image024_author", "USER");
+        Long articleId = insertArticle(authorId, "批量图片", "DRAFT");
+
+        Statistics statistics = resetStatistics();
+        transactionTemplate.executeWithoutResult(tx -> {
+            Article article = articleRepository.getReferenceById(articleId);
+            List<ArticleImage> images = new ArrayList<>();
+            for (int i = 0; i < IMAGES; i++) {
+                ArticleImage image = new ArticleImage();
+                image.setArticle(article);
+                image.setImageUrl("/api/images/" + i);
+                image.setSortOrder(i);
+                images.add(image);
+            }
+            articleImageRepository.saveAll(images);
+        });
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(IMAGES);
+        // 每50条一批共3批，另有每次预分配50个ID时读写id_generator的语句
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3 + 3 * 2);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(DISTINCT id) FROM article_image WHERE article_id = ?", Integer.class, articleId))
+                .isEqualTo(IMAGES);
+    }
+}
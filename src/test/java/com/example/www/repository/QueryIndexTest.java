@@ -0,0 +1,93 @@
+package com.example.www.repository;
+
+import com.example.www.support.IntegrationTest;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 迁移脚本建立的索引被主要查询实际使用，执行计划不出现全表扫描和文件排序
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryIndexTest extends IntegrationTest {
+    private static final String[] STATUSES = {"APPROVED", "PENDING", "DRAFT", "REJECTED"};
+
+    private Long authorId;
+
+    @BeforeAll
+    void seed() {
+        List<Long> authors = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            authors.add(insertUser("index010_author_" + i, "USER"));
+        }
+        authorId = authors.get(0);
+        List<Object[]> articles = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            articles.add(new Object[]{"索引" + i, authors.get(i % authors.size()), STATUSES[i % STATUSES.length], i});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO article (title, content, author_id, status, created_at, updated_at, published_at) "
+                + "VALUES (?, 'content', ?, ?, NOW(6) - INTERVAL ? MINUTE, NOW(6), NOW(6))", articles);
+        jdbcTemplate.update("INSERT INTO article_like (article_id, user_id, created_at) "
+                + "SELECT a.id, u.id, NOW(6) FROM article a JOIN `user` u ON u.username LIKE 'index010_author_%' "
+                + "WHERE a.status = 'APPROVED' AND a.title LIKE '索引%'");
+        for (String table : new String[]{"article", "article_like", "article_image", "article_review"}) {
+            jdbcTemplate.execute("ANALYZE TABLE " + table);
+        }
+    }
+
+    @Test
+    void publishedListUsesStatusPublishedIndex() {
+        assertPlan("SELECT id, title FROM article WHERE status = 'APPROVED' ORDER BY published_at DESC, id DESC LIMIT 10",
+                "idx_article_status_published");
+    }
+
+    @Test
+    void pendingListUsesStatusCreatedIndex() {
+        assertPlan("SELECT id, title FROM article WHERE status = 'PENDING' ORDER BY created_at DESC, id DESC LIMIT 10",
+                "idx_article_status_created");
+    }
+
+    @Test
+    void authorStatusListUsesAuthorStatusIndex() {
+        assertPlan("SELECT id, title FROM article WHERE author_id = " + authorId
+                        + " AND status = 'DRAFT' ORDER BY created_at DESC, id DESC LIMIT 10",
+                "idx_article_author_status_created");
+    }
+
+    @Test
+    void likedArticleIdsUseUserIndex() {
+        assertPlan("SELECT article_id FROM article_like WHERE user_id = " + authorId, "idx_article_like_user_article");
+    }
+
+    @Test
+    void likeLookupUsesUniqueKey() {
+        assertPlan("SELECT id FROM article_like WHERE article_id = 1 AND user_id = " + authorId,
+                "uk_article_like_article_user");
+    }
+
+    @Test
+    void articleImagesUseSortIndex() {
+        assertPlan("SELECT id FROM article_image WHERE article_id = 1 ORDER BY sort_order", "idx_article_image_article_sort");
+    }
+
+    @Test
+    void articleReviewsUseCreatedIndex() {
+        assertPlan("SELECT id FROM article_review WHERE article_id = 1 ORDER BY created_at DESC",
+                "idx_article_review_article_created");
+    }
+
+    private void assertPlan(String sql, String expectedKey) {
+        List<Map<String, Object>> plan = jdbcTemplate.queryForList("EXPLAIN " + sql);
+        assertThat(plan).hasSize(1);
+        Map<String, Object> row = plan.get(0);
+        assertThat(row.get("type")).as("访问方式").isNotEqualTo("ALL");
+        assertThat(row.get("key")).as("使用的索引").isEqualTo(expectedKey);
+        assertThat(String.valueOf(row.get("Extra"))).as("附加信息").doesNotContain("Using filesort");
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.www.service;
+
+import com.example.www.support.IntegrationTest;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 浏览计数只写article_stats窄表，不加载也不更新文章实体
+ */
+class ArticleCounterServiceTest extends IntegrationTest {
+    @Autowired
+    private ArticleCounterService articleCounterService;
+
+    @Test
+    void viewsTouchOnlyTheStatsRow() throws Exception {
+        Long authorId = insertUser("counter021_author", "USER");
+        Long articleId = insertArticle(authorId, "计数", "APPROVED");
+        Timestamp updatedAt = jdbcTemplate.queryForObject(
+                "SELECT updated_at FROM article WHERE id = ?", Timestamp.class, articleId);
+
+        Statistics statistics = resetStatistics();
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(post("/api/article/" + articleId + "/view")).andExpect(status().isOk());
+        }
+        // 每次请求只有一条存在性检查，计数在内存中累加
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(statistics.getEntityUpdateCount()).isZero();
+        assertThat(articleCounterService.getPendingViews(articleId)).isEqualTo(3);
+
+        articleCounterService.flush();
+
+        assertThat(articleCounterService.getPendingViews(articleId)).isZero();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT view_count FROM article_stats WHERE article_id = ?", Integer.class, articleId)).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT updated_at FROM article WHERE id = ?", Timestamp.class, articleId)).isEqualTo(updatedAt);
+        assertThat(statistics.getEntityUpdateCount()).isZero();
+    }
+
+    @Test
+    void flushNeverDrivesLikeCountNegative() {
+        Long authorId = insertUser("counter021_unlike", "USER");
+        Long articleId = insertArticle(authorId, "计数下限", "APPROVED");
+
+        articleCounterService.adjustLikes(articleId, -2);
+        articleCounterService.flush();
+
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT like_count FROM article_stats WHERE article_id = ?", Integer.class, articleId)).isZero();
+    }
+
+    @Test
+    void failedFlushKeepsDeltasForTheNextFlush() {
+        ArticleCounterService service = new ArticleCounterService();
+        List<Object[]> updates = new ArrayList<>();
+        JdbcTemplate failingOnce = new JdbcTemplate() {
+            @Override
+            public int update(String sql, Object... args) {
+                updates.add(args);
+                if (updates.size() == 1) {
+                    throw new DataAccessResourceFailureException("数据库不可用");
+                }
+                return 1;
+            }
+        };
+        ReflectionTestUtils.setField(service, "jdbcTemplate", failingOnce);
+        ReflectionTestUtils.setField(service, "publishedFeedService", mock(PublishedFeedService.class));
+        ReflectionTestUtils.setField(service, "flushBatchSize", 500);
+
+        for (int i = 0; i < 3; i++) {
+            service.incrementView(42L);
+        }
+        service.flush();
+        assertThat(service.getPendingViews(42L)).isEqualTo(3);
+
+        service.incrementView(42L);
+        service.flush();
+        assertThat(service.getPendingViews(42L)).isZero();
+        // 第二次写回包含失败时放回的3次和之后新增的1次
+        assertThat(updates).hasSize(2);
+        assertThat(updates.get(1)).containsExactly(42L, 4L, 42L);
+    }
+}
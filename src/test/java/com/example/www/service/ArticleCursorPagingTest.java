@@ -0,0 +1,98 @@
+package com.example.www.service;
+
+import com.example.www.dto.ArticleSummary;
+import com.example.www.dto.CursorResponse;
+import com.example.www.entity.Article;
+import com.example.www.repository.ArticleRepository;
+import com.example.www.support.IntegrationTest;
+import com.example.www.util.CursorUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 游标分页在排序时间相同时按ID继续翻页，已发布文章的游标不包含空发布时间
+ */
+class ArticleCursorPagingTest extends IntegrationTest {
+    private static final String SAME_TIME = "2024-05-01 12:00:00.000000";
+
+    @Autowired
+    private ArticleService articleService;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Test
+    void publishedPagesWalkThroughTiesByIdAndSkipRowsWithoutPublishTime() {
+        Long authorId = insertUser("cursor008_published", "USER");
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Long id = insertArticle(authorId, "同一时间" + i, "APPROVED");
+            jdbcTemplate.update("UPDATE article SET published_at = ? WHERE id = ?", SAME_TIME, id);
+            ids.add(0, id);
+        }
+        Long unpublished = insertArticle(authorId, "没有发布时间", "APPROVED");
+        jdbcTemplate.update("UPDATE article SET published_at = NULL WHERE id = ?", unpublished);
+
+        List<Long> seen = walk("APPROVED", authorId);
+        assertThat(seen).isEqualTo(ids);
+    }
+
+    @Test
+    void createdPagesWalkThroughTiesById() {
+        Long authorId = insertUser("cursor008_created", "USER");
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Long id = insertArticle(authorId, "草稿" + i, "DRAFT");
+            jdbcTemplate.update("UPDATE article SET created_at = ? WHERE id = ?", SAME_TIME, id);
+            ids.add(0, id);
+        }
+
+        assertThat(walk("DRAFT", authorId)).isEqualTo(ids);
+    }
+
+    @Test
+    void savingAnApprovedArticleSetsPublishTime() {
+        Long authorId = insertUser("cursor008_entity", "USER");
+        Article article = new Article();
+        article.setTitle("直接发布");
+        article.setContent("正文");
+        article.setAuthorId(authorId);
+        article.setStatus("APPROVED");
+        article = articleRepository.save(article);
+        assertThat(article.getPublishedAt()).isNotNull();
+
+        Article draft = new Article();
+        draft.setTitle("草稿");
+        draft.setContent("正文");
+        draft.setAuthorId(authorId);
+        draft = articleRepository.save(draft);
+        assertThat(draft.getPublishedAt()).isNull();
+        draft.setStatus("APPROVED");
+        assertThat(articleRepository.save(draft).getPublishedAt()).isNotNull();
+    }
+
+    /**
+     * 每页2条翻到最后一页，返回依次看到的文章ID
+     */
+    private List<Long> walk(String status, Long authorId) {
+        List<Long> seen = new ArrayList<>();
+        String cursor = "";
+        do {
+            CursorResponse<ArticleSummary> page = articleService.findSummariesByCursor(status, authorId, cursor, 2);
+            for (ArticleSummary summary : page.getRecords()) {
+                seen.add(summary.getId());
+            }
+            cursor = page.getNextCursor();
+            if (cursor != null) {
+                // 游标中的时间必须能解析
+                assertThat(CursorUtil.decode(cursor).getTime()).isNotNull();
+            }
+        } while (cursor != null);
+        return seen;
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.www.service;
+
+import com.example.www.dto.ArticleUpdateRequest;
+import com.example.www.repository.ArticleRepository;
+import com.example.www.support.IntegrationTest;
+import org.hibernate.stat.EntityStatistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 修改文章时按图片内容和排序对比，只写入有变化的图片
+ */
+class ArticleImageReconcileTest extends IntegrationTest {
+    private static final String A = "/api/images/" + "a".repeat(64);
+    private static final String B = "/api/images/" + "b".repeat(64);
+    private static final String C = "/api/images/" + "c".repeat(64);
+    private static final String D = "/api/images/" + "d".repeat(64);
+
+    @Autowired
+    private ArticleService articleService;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    private Long articleId;
+    private Map<String, Long> originalIds;
+
+    @BeforeEach
+    void setUp() {
+        Long authorId = insertUser("reconcile023_" + System.nanoTime(), "USER");
+        articleId = insertArticle(authorId, "图片", "DRAFT");
+        String[] urls = {A, B, C};
+        for (int i = 0; i < urls.length; i++) {
+            jdbcTemplate.update("INSERT INTO article_image (id, article_id, image_url, image_name, sort_order, created_at) "
+                    + "VALUES (?, ?, ?, ?, ?, NOW(6))", articleId * 10 + i, articleId, urls[i], "img" + i, i);
+        }
+        originalIds = rows();
+    }
+
+    @Test
+    void unchangedImagesAreNotRewritten() throws Exception {
+        EntityStatistics statistics = update(image(A, "img0", 0), image(B, "img1", 1), image(C, "img2", 2));
+
+        assertThat(statistics.getInsertCount()).isZero();
+        assertThat(statistics.getUpdateCount()).isZero();
+        assertThat(rows()).isEqualTo(originalIds);
+    }
+
+    @Test
+    void reorderOnlyUpdatesSortOrder() throws Exception {
+        EntityStatistics statistics = update(image(C, "img2", 0), image(A, "img0", 1), image(B, "img1", 2));
+
+        assertThat(statistics.getInsertCount()).isZero();
+        assertThat(statistics.getUpdateCount()).isEqualTo(3);
+        Map<String, Long> rows = rows();
+        assertThat(rows.keySet()).containsExactly(C + "@0", A + "@1", B + "@2");
+        assertThat(rows.get(C + "@0")).isEqualTo(originalIds.get(C + "@2"));
+        assertThat(rows.get(A + "@1")).isEqualTo(originalIds.get(A + "@0"));
+        assertThat(rows.get(B + "@2")).isEqualTo(originalIds.get(B + "@1"));
+    }
+
+    @Test
+    void replacedImageIsDeletedAndNewOneInserted() throws Exception {
+        EntityStatistics statistics = update(image(A, "img0", 0), image(D, "new", 1), image(C, "img2", 2));
+
+        assertThat(statistics.getInsertCount()).isEqualTo(1);
+        assertThat(statistics.getUpdateCount()).isZero();
+        Map<String, Long> rows = rows();
+        assertThat(rows.keySet()).containsExactly(A + "@0", D + "@1", C + "@2");
+        assertThat(rows.get(A + "@0")).isEqualTo(originalIds.get(A + "@0"));
+        assertThat(rows.get(C + "@2")).isEqualTo(originalIds.get(C + "@2"));
+        assertThat(originalIds).doesNotContainValue(rows.get(D + "@1"));
+    }
+
+    @Test
+    void removedImagesAreDeleted() throws Exception {
+        EntityStatistics statistics = update(image(A, "img0", 0));
+
+        assertThat(statistics.getInsertCount()).isZero();
+        assertThat(statistics.getUpdateCount()).isZero();
+        assertThat(rows()).containsExactly(Map.entry(A + "@0", originalIds.get(A + "@0")));
+    }
+
+    private EntityStatistics update(ArticleUpdateRequest.ArticleImageRequest... images) throws Exception {
+        ArticleUpdateRequest request = new ArticleUpdateRequest();
+        request.setImages(new ArrayList<>(List.of(images)));
+        EntityStatistics statistics = resetStatistics().getEntityStatistics("com.example.www.entity.ArticleImage");
+        articleService.updateArticleAndImages(articleRepository.findById(articleId).orElseThrow(), request);
+        return statistics;
+    }
+
+    /**
+     * 图片地址@排序 -> 行ID，按排序排列
+     */
+    private Map<String, Long> rows() {
+        Map<String, Long> rows = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT id, image_url, sort_order FROM article_image WHERE article_id = ? ORDER BY sort_order",
+                rs -> {
+                    rows.put(rs.getString("image_url") + "@" + rs.getInt("sort_order"), rs.getLong("id"));
+                }, articleId);
+        return rows;
+    }
+
+    private static ArticleUpdateRequest.ArticleImageRequest image(String url, String name, int sortOrder) {
+        ArticleUpdateRequest.ArticleImageRequest image = new ArticleUpdateRequest.ArticleImageRequest();
+        image.setImageUrl(url);
+        image.setImageName(name);
+        image.setSortOrder(sortOrder);
+        return image;
+    }
+}
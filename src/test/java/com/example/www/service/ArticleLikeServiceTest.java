@@ -0,0 +1,93 @@
+package com.example.www.service;
+
+import com.example.www.support.IntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 并发点赞/取消点赞后，点赞记录和写回的点赞数保持一致
+ */
+class ArticleLikeServiceTest extends IntegrationTest {
+    @Autowired
+    private ArticleLikeService articleLikeService;
+
+    @Autowired
+    private ArticleCounterService articleCounterService;
+
+    @Test
+    void concurrentLikesAndUnlikesKeepCountExact() throws Exception {
+        Long authorId = insertUser("like005_author", "USER");
+        Long articleId = insertArticle(authorId, "点赞并发", "APPROVED");
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            userIds.add(insertUser("like005_user_" + i, "USER"));
+        }
+
+        AtomicInteger duplicates = new AtomicInteger();
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            // 写回和点赞同时进行，覆盖取出增量与累加交错的情况
+            Future<?> flusher = pool.submit(() -> {
+                while (running.get()) {
+                    articleCounterService.flush();
+                }
+            });
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int i = 0; i < userIds.size(); i++) {
+                Long userId = userIds.get(i);
+                boolean unlike = i % 3 == 0;
+                tasks.add(pool.submit(() -> {
+                    articleLikeService.likeArticle(articleId, userId);
+                    try {
+                        articleLikeService.likeArticle(articleId, userId);
+                    } catch (IllegalArgumentException e) {
+                        if ("已经点赞过此文章".equals(e.getMessage())) {
+                            duplicates.incrementAndGet();
+                        }
+                    }
+                    if (unlike) {
+                        articleLikeService.unlikeArticle(articleId, userId);
+                        articleLikeService.unlikeArticle(articleId, userId);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+            running.set(false);
+            flusher.get();
+        } finally {
+            pool.shutdown();
+        }
+        articleCounterService.flush();
+
+        // 下标为3的倍数的用户点赞后又取消
+        int expected = userIds.size() - (userIds.size() + 2) / 3;
+        assertThat(duplicates.get()).isEqualTo(userIds.size());
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM article_like WHERE article_id = ?", Integer.class, articleId)).isEqualTo(expected);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT like_count FROM article_stats WHERE article_id = ?", Integer.class, articleId)).isEqualTo(expected);
+    }
+
+    @Test
+    void likingMissingArticleIsReported() {
+        Long userId = insertUser("like005_missing", "USER");
+        assertThatThrownBy(() -> articleLikeService.likeArticle(Long.MAX_VALUE, userId))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("文章不存在");
+    }
+}
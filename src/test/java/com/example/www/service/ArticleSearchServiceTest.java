@@ -0,0 +1,111 @@
+package com.example.www.service;
+
+import com.example.www.entity.Article;
+import com.example.www.repository.ArticleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 全文索引的排序、增量更新，以及构建期间的增量更新不被旧快照覆盖
+ */
+class ArticleSearchServiceTest {
+    private ArticleSearchService searchService;
+    private ArticleRepository articleRepository;
+
+    @BeforeEach
+    void setUp() {
+        searchService = new ArticleSearchService();
+        articleRepository = mock(ArticleRepository.class);
+        ReflectionTestUtils.setField(searchService, "articleRepository", articleRepository);
+    }
+
+    @Test
+    void titleMatchesAndShorterDocumentsRankFirst() {
+        rebuildWith(
+                article(1L, "闲谈", "今天聊聊缓存，顺便说说别的事情和一些其他话题", "APPROVED", 1L),
+                article(2L, "缓存设计", "本文介绍几种常见做法", "APPROVED", 1L),
+                article(3L, "杂记", "聊聊缓存", "APPROVED", 2L),
+                article(4L, "数据库", "索引与事务", "APPROVED", 2L));
+
+        ArticleSearchService.SearchResult result = searchService.search("缓存", null, null, 0, 10);
+        assertThat(result.getTotal()).isEqualTo(3);
+        assertThat(result.getIds()).containsExactly(2L, 3L, 1L);
+
+        assertThat(searchService.search("缓存", null, 2L, 0, 10).getIds()).containsExactly(3L);
+        assertThat(searchService.search("缓存", null, null, 1, 2).getIds()).containsExactly(1L);
+    }
+
+    @Test
+    void allQueryTermsMustMatch() {
+        rebuildWith(
+                article(1L, "Spring Boot", "使用缓存", "APPROVED", 1L),
+                article(2L, "Spring", "事务管理", "APPROVED", 1L));
+
+        assertThat(searchService.search("spring 缓存", null, null, 0, 10).getIds()).containsExactly(1L);
+        // 按词切分，单词片段不再像LIKE那样命中
+        assertThat(searchService.search("spri", null, null, 0, 10).getIds()).isEmpty();
+    }
+
+    @Test
+    void incrementalUpdatesReplaceRemoveAndRestatusDocuments() {
+        rebuildWith(article(1L, "缓存", "内容", "PENDING", 1L));
+
+        searchService.index(article(1L, "事务", "内容", "PENDING", 1L));
+        assertThat(searchService.search("缓存", null, null, 0, 10).getIds()).isEmpty();
+        assertThat(searchService.search("事务", null, null, 0, 10).getIds()).containsExactly(1L);
+
+        assertThat(searchService.search("事务", "APPROVED", null, 0, 10).getIds()).isEmpty();
+        searchService.updateStatus(1L, "APPROVED");
+        assertThat(searchService.search("事务", "APPROVED", null, 0, 10).getIds()).containsExactly(1L);
+
+        searchService.remove(1L);
+        assertThat(searchService.search("事务", null, null, 0, 10).getTotal()).isZero();
+        assertThat(ReflectionTestUtils.getField(searchService, "totalLength")).isEqualTo(0L);
+    }
+
+    @Test
+    void updatesDuringRebuildWinOverTheSnapshot() {
+        // 快照读取之后、写入索引之前，三篇文章分别被修改、删除和审核通过
+        when(articleRepository.findAll(any(Pageable.class))).thenAnswer(invocation -> {
+            searchService.index(article(1L, "事务", "新内容", "APPROVED", 1L));
+            searchService.remove(2L);
+            searchService.updateStatus(3L, "APPROVED");
+            return new PageImpl<>(List.of(
+                    article(1L, "缓存", "旧内容", "APPROVED", 1L),
+                    article(2L, "缓存", "已删除", "APPROVED", 1L),
+                    article(3L, "缓存", "待审核", "PENDING", 1L)));
+        });
+        assertThat(searchService.isReady()).isFalse();
+        searchService.rebuild();
+        assertThat(searchService.isReady()).isTrue();
+
+        assertThat(searchService.search("缓存", null, null, 0, 10).getIds()).containsExactly(3L);
+        assertThat(searchService.search("缓存", "APPROVED", null, 0, 10).getIds()).containsExactly(3L);
+        assertThat(searchService.search("事务", null, null, 0, 10).getIds()).containsExactly(1L);
+    }
+
+    private void rebuildWith(Article... articles) {
+        when(articleRepository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(List.of(articles)));
+        searchService.rebuild();
+    }
+
+    private static Article article(Long id, String title, String content, String status, Long authorId) {
+        Article article = new Article();
+        article.setId(id);
+        article.setTitle(title);
+        article.setContent(content);
+        article.setStatus(status);
+        article.setAuthorId(authorId);
+        return article;
+    }
+}
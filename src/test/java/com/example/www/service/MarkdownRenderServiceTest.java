@@ -0,0 +1,66 @@
+package com.example.www.service;
+
+import com.example.www.entity.Article;
+import com.example.www.entity.ArticleRender;
+import com.example.www.repository.ArticleRepository;
+import com.example.www.support.IntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 正文中的图片占位符按图片顺序解析，图片变化时重新渲染，图片地址被直接更新时删除渲染结果
+ */
+class MarkdownRenderServiceTest extends IntegrationTest {
+    private static final String HASH_A = "a".repeat(64);
+    private static final String HASH_B = "b".repeat(64);
+
+    @Autowired
+    private MarkdownRenderService markdownRenderService;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Test
+    void resolvesImagePlaceholdersAndRerendersOnImageChange() {
+        Long authorId = insertUser("render025_author", "USER");
+        Long articleId = insertArticle(authorId, "渲染", "APPROVED");
+        jdbcTemplate.update("UPDATE article SET content = ? WHERE id = ?",
+                "# 标题\n\n正文 ![插图](#image0) 结束\n\n![缺失](#image5)", articleId);
+        jdbcTemplate.update("INSERT INTO article_image (id, article_id, image_url, sort_order, created_at) "
+                + "VALUES (?, ?, ?, 0, NOW(6))", 1_000_000L + articleId, articleId, "/api/images/" + HASH_A);
+        Article article = articleRepository.findById(articleId).orElseThrow();
+
+        ArticleRender first = markdownRenderService.render(article);
+        assertThat(first.getContentHtml())
+                .contains("src=\"/api/images/" + HASH_A + "/medium\"")
+                .contains("alt=\"插图\"")
+                // 没有对应图片的占位符保持原样
+                .contains("src=\"#image5\"");
+        // 图片的说明和地址不计入摘要和字数
+        assertThat(first.getExcerpt()).isEqualTo("标题 正文 结束");
+        assertThat(first.getWordCount()).isEqualTo(6);
+
+        assertThat(markdownRenderService.render(article).getSourceHash()).isEqualTo(first.getSourceHash());
+
+        jdbcTemplate.update("UPDATE article_image SET image_url = ? WHERE article_id = ?", "/api/images/" + HASH_B, articleId);
+        ArticleRender second = markdownRenderService.render(article);
+        assertThat(second.getSourceHash()).isNotEqualTo(first.getSourceHash());
+        assertThat(second.getContentHtml()).contains("src=\"/api/images/" + HASH_B + "/medium\"");
+    }
+
+    @Test
+    void invalidatesRenderOfTheImagesArticle() {
+        Long authorId = insertUser("render025_invalidate", "USER");
+        Long articleId = insertArticle(authorId, "迁移", "APPROVED");
+        Long imageId = 2_000_000L + articleId;
+        jdbcTemplate.update("INSERT INTO article_image (id, article_id, image_url, sort_order, created_at) "
+                + "VALUES (?, ?, ?, 0, NOW(6))", imageId, articleId, "/api/images/" + HASH_A);
+        markdownRenderService.render(articleRepository.findById(articleId).orElseThrow());
+
+        markdownRenderService.invalidateByImageId(imageId);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM article_render WHERE article_id = ?",
+                Integer.class, articleId)).isZero();
+    }
+}
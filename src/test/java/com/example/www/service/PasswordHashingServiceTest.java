@@ -0,0 +1,101 @@
+package com.example.www.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 密码哈希线程池的背压和登录时的哈希升级
+ */
+class PasswordHashingServiceTest {
+    private final List<PasswordHashingService> services = new ArrayList<>();
+
+    @AfterEach
+    void shutdown() {
+        services.forEach(PasswordHashingService::shutdown);
+    }
+
+    @Test
+    void rejectsCallersBeyondPoolAndQueue() throws Exception {
+        // 1个线程、队列1：慢哈希期间只能容纳2个请求
+        PasswordHashingService service = create(14, 1, 1);
+        int callers = 10;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService callerPool = Executors.newFixedThreadPool(callers);
+        List<Future<CompletableFuture<String>>> submissions = new ArrayList<>();
+        try {
+            for (int i = 0; i < callers; i++) {
+                submissions.add(callerPool.submit(() -> {
+                    start.await();
+                    return service.encode("password");
+                }));
+            }
+            start.countDown();
+
+            int busy = 0;
+            int encoded = 0;
+            for (Future<CompletableFuture<String>> submission : submissions) {
+                try {
+                    assertThat(submission.get().get()).startsWith("$2a$14$");
+                    encoded++;
+                } catch (ExecutionException e) {
+                    assertThat(e.getCause()).isInstanceOf(PasswordHashingService.BusyException.class);
+                    busy++;
+                }
+            }
+            assertThat(encoded).isEqualTo(2);
+            assertThat(busy).isEqualTo(callers - 2);
+        } finally {
+            callerPool.shutdown();
+        }
+    }
+
+    @Test
+    void verifyUpgradesWeakerHash() throws Exception {
+        String weakHash = new BCryptPasswordEncoder(4).encode("password");
+        PasswordHashingService service = create(5, 1, 4);
+
+        PasswordHashingService.VerifyResult result = service.verify("password", weakHash).get();
+        assertThat(result.isMatched()).isTrue();
+        assertThat(result.getUpgradedHash()).startsWith("$2a$05$");
+        assertThat(new BCryptPasswordEncoder().matches("password", result.getUpgradedHash())).isTrue();
+
+        PasswordHashingService.VerifyResult current = service.verify("password", result.getUpgradedHash()).get();
+        assertThat(current.isMatched()).isTrue();
+        assertThat(current.getUpgradedHash()).isNull();
+
+        assertThat(service.verify("wrong", weakHash).get().isMatched()).isFalse();
+    }
+
+    @Test
+    void changeEncodesNewPasswordOnlyWhenOldOneMatches() throws Exception {
+        PasswordHashingService service = create(4, 1, 4);
+        String stored = new BCryptPasswordEncoder(4).encode("old");
+
+        assertThat(service.change("wrong", stored, "new").get()).isNull();
+        String changed = service.change("old", stored, "new").get();
+        assertThat(new BCryptPasswordEncoder().matches("new", changed)).isTrue();
+    }
+
+    private PasswordHashingService create(int strength, int poolSize, int queueCapacity) {
+        PasswordHashingService service = new PasswordHashingService();
+        ReflectionTestUtils.setField(service, "strength", strength);
+        ReflectionTestUtils.setField(service, "poolSize", poolSize);
+        ReflectionTestUtils.setField(service, "queueCapacity", queueCapacity);
+        service.init();
+        services.add(service);
+        return service;
+    }
+}
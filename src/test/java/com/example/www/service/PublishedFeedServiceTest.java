@@ -0,0 +1,166 @@
+package com.example.www.service;
+
+import com.example.www.dto.ArticleSummary;
+import com.example.www.dto.PageResponse;
+import com.example.www.repository.ArticleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 首页缓存的窗口裁剪、文章离开首页后的补齐，以及查询数据库时不持有锁
+ */
+class PublishedFeedServiceTest {
+    private static final int CAPACITY = 4;
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private final Map<Long, ArticleSummary> db = new LinkedHashMap<>();
+    private PublishedFeedService feed;
+    private ReentrantLock lock;
+    private Runnable duringLoad;
+    private final AtomicBoolean lockedDuringQuery = new AtomicBoolean();
+
+    @BeforeEach
+    void setUp() {
+        feed = new PublishedFeedService();
+        ArticleRepository articleRepository = mock(ArticleRepository.class);
+        ReflectionTestUtils.setField(feed, "articleRepository", articleRepository);
+        ReflectionTestUtils.setField(feed, "authorService", mock(AuthorService.class));
+        ReflectionTestUtils.setField(feed, "capacity", CAPACITY);
+        lock = (ReentrantLock) ReflectionTestUtils.getField(feed, "lock");
+
+        when(articleRepository.findSummariesPublishedBefore(eq("APPROVED"), isNull(), any(), anyLong(), any()))
+                .thenAnswer(invocation -> {
+                    checkUnlocked();
+                    LocalDateTime before = invocation.getArgument(2);
+                    long id = invocation.getArgument(3);
+                    int limit = invocation.<Pageable>getArgument(4).getPageSize();
+                    List<ArticleSummary> result = approved().stream()
+                            .filter(s -> s.getPublishedAt().isBefore(before)
+                                    || (s.getPublishedAt().equals(before) && s.getId() < id))
+                            .limit(limit)
+                            .map(ArticleSummary::copy)
+                            .toList();
+                    // 模拟查询返回后、写入缓存前其他请求修改了文章
+                    if (duringLoad != null) {
+                        Runnable action = duringLoad;
+                        duringLoad = null;
+                        action.run();
+                    }
+                    return result;
+                });
+        when(articleRepository.countByStatus("APPROVED")).thenAnswer(invocation -> {
+            checkUnlocked();
+            return (long) approved().size();
+        });
+        when(articleRepository.findSummaryById(anyLong())).thenAnswer(invocation -> {
+            checkUnlocked();
+            ArticleSummary summary = db.get(invocation.<Long>getArgument(0));
+            return Optional.ofNullable(summary == null ? null : summary.copy());
+        });
+
+        for (long id = 1; id <= 6; id++) {
+            put(id, "APPROVED");
+        }
+    }
+
+    @Test
+    void windowHoldsTheNewestArticlesUpToCapacity() {
+        assertThat(ids(feed.getPage(1, 4))).containsExactly(6L, 5L, 4L, 3L);
+        assertThat(feed.getPage(1, 4).getTotal()).isEqualTo(6);
+        assertThat(feed.getPage(2, 2)).isNotNull();
+        // 超出窗口的页由调用方查询数据库
+        assertThat(feed.getPage(3, 2)).isNull();
+
+        // 新发布的文章插到最前，末尾被挤出窗口
+        put(7L, "APPROVED");
+        feed.onArticleChanged(7L, "PENDING");
+        assertThat(ids(feed.getPage(1, 4))).containsExactly(7L, 6L, 5L, 4L);
+        assertThat(feed.getPage(1, 4).getTotal()).isEqualTo(7);
+        assertThat(windowSize()).isEqualTo(CAPACITY);
+        assertThat(lockedDuringQuery).isFalse();
+    }
+
+    @Test
+    void unpublishedAndDeletedArticlesLeaveTheFeedAndTheWindowIsRefilled() {
+        assertThat(ids(feed.getPage(1, 4))).containsExactly(6L, 5L, 4L, 3L);
+
+        db.get(5L).setStatus("PENDING");
+        feed.onArticleChanged(5L, "APPROVED");
+        assertThat(ids(feed.getPage(1, 4))).containsExactly(6L, 4L, 3L, 2L);
+        assertThat(feed.getPage(1, 4).getTotal()).isEqualTo(5);
+
+        db.remove(6L);
+        feed.onArticleDeleted(6L, "APPROVED");
+        assertThat(ids(feed.getPage(1, 4))).containsExactly(4L, 3L, 2L, 1L);
+        assertThat(feed.getPage(1, 4).getTotal()).isEqualTo(4);
+
+        // 已不在首页的草稿被删除不影响总数
+        put(8L, "DRAFT");
+        db.remove(8L);
+        feed.onArticleDeleted(8L, "DRAFT");
+        assertThat(feed.getPage(1, 4).getTotal()).isEqualTo(4);
+        assertThat(lockedDuringQuery).isFalse();
+    }
+
+    @Test
+    void changeDuringInitialLoadIsNotLost() {
+        // 加载查询数据库后有文章下线，旧的加载结果被丢弃并重新加载
+        duringLoad = () -> {
+            db.get(6L).setStatus("PENDING");
+            feed.onArticleChanged(6L, "APPROVED");
+        };
+        assertThat(ids(feed.getPage(1, 4))).containsExactly(5L, 4L, 3L, 2L);
+        assertThat(feed.getPage(1, 4).getTotal()).isEqualTo(5);
+        assertThat(lockedDuringQuery).isFalse();
+    }
+
+    private void checkUnlocked() {
+        if (lock.isLocked()) {
+            lockedDuringQuery.set(true);
+        }
+    }
+
+    private void put(Long id, String status) {
+        db.put(id, new ArticleSummary(id, "文章" + id, "摘要", 1L, status, 0, 0,
+                BASE, BASE, BASE.plusHours(id), null, false));
+    }
+
+    private List<ArticleSummary> approved() {
+        List<ArticleSummary> approved = new ArrayList<>();
+        for (ArticleSummary summary : db.values()) {
+            if ("APPROVED".equals(summary.getStatus())) {
+                approved.add(summary);
+            }
+        }
+        approved.sort(Comparator.comparing(ArticleSummary::getPublishedAt).thenComparing(ArticleSummary::getId).reversed());
+        return approved;
+    }
+
+    private int windowSize() {
+        return ((List<?>) ReflectionTestUtils.getField(feed, "window")).size();
+    }
+
+    private static List<Long> ids(PageResponse<ArticleSummary> page) {
+        return page.getRecords().stream().map(ArticleSummary::getId).toList();
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.www.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 并发的相同请求只调用一次上游，失败的请求不进入缓存
+ */
+class SparkAIResponseCacheTest {
+    private SparkAIResponseCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new SparkAIResponseCache();
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 600L);
+        ReflectionTestUtils.setField(cache, "maxEntries", 10);
+    }
+
+    @Test
+    void concurrentCallersShareOneLoad() throws Exception {
+        int callers = 16;
+        AtomicInteger loads = new AtomicInteger();
+        CompletableFuture<ResponseEntity<String>> upstream = new CompletableFuture<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        List<Future<CompletableFuture<ResponseEntity<String>>>> calls = new ArrayList<>();
+        try {
+            for (int i = 0; i < callers; i++) {
+                calls.add(pool.submit(() -> {
+                    start.await();
+                    return cache.getOrLoad("k", () -> {
+                        loads.incrementAndGet();
+                        return upstream;
+                    }, response -> response.getStatusCode().is2xxSuccessful());
+                }));
+            }
+            start.countDown();
+            List<CompletableFuture<ResponseEntity<String>>> results = new ArrayList<>();
+            for (Future<CompletableFuture<ResponseEntity<String>>> call : calls) {
+                results.add(call.get());
+            }
+            // 上游返回前所有调用都已挂在同一个请求上
+            upstream.complete(ResponseEntity.ok("answer"));
+            for (CompletableFuture<ResponseEntity<String>> result : results) {
+                assertThat(result.get().getBody()).isEqualTo("answer");
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(cache.getStats())
+                .containsEntry("misses", 1L)
+                .containsEntry("coalesced", (long) callers - 1)
+                .containsEntry("inFlight", 0)
+                .containsEntry("size", 1);
+
+        cache.getOrLoad("k", () -> {
+            throw new AssertionError("命中缓存时不应调用上游");
+        }, response -> true).get();
+        assertThat(cache.getStats()).containsEntry("hits", 1L);
+    }
+
+    @Test
+    void failedLoadsAreNotCached() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        cache.getOrLoad("k", () -> {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture(ResponseEntity.status(500).body("error"));
+        }, response -> response.getStatusCode().is2xxSuccessful()).get();
+
+        assertThatThrownBy(() -> cache.getOrLoad("k", () -> {
+            loads.incrementAndGet();
+            throw new IllegalStateException("上游不可用");
+        }, response -> true).get()).isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+
+        ResponseEntity<String> response = cache.getOrLoad("k", () -> {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture(ResponseEntity.ok("answer"));
+        }, r -> r.getStatusCode().is2xxSuccessful()).get();
+
+        assertThat(response.getBody()).isEqualTo("answer");
+        assertThat(loads.get()).isEqualTo(3);
+        assertThat(cache.getStats()).containsEntry("inFlight", 0).containsEntry("size", 1);
+    }
+}
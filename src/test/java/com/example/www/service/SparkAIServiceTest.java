@@ -0,0 +1,74 @@
+package com.example.www.service;
+
+import com.example.www.util.TokenEstimateUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 命中缓存的对话不消耗用户的token额度
+ */
+class SparkAIServiceTest {
+    private static final String ANSWER = "{\"code\":0,\"choices\":[]}";
+
+    private final List<Map<String, Object>> messages = List.of(Map.of("role", "user", "content", "你好，介绍一下自己"));
+    private final int tokens = TokenEstimateUtil.estimate(messages.get(0));
+
+    private SparkAIService service;
+    private SparkAIResponseCache cache;
+    private AIRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        cache = new SparkAIResponseCache();
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 600L);
+        ReflectionTestUtils.setField(cache, "maxEntries", 10);
+
+        // 用户额度只够发送两次
+        rateLimiter = new AIRateLimiter();
+        ReflectionTestUtils.setField(rateLimiter, "userTokensPerMinute", (long) tokens * 2);
+        ReflectionTestUtils.setField(rateLimiter, "modelTokensPerMinute", 1_000_000L);
+        ReflectionTestUtils.setField(rateLimiter, "maxUsers", 10);
+
+        service = new SparkAIService();
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(service, "responseCache", cache);
+        ReflectionTestUtils.setField(service, "rateLimiter", rateLimiter);
+    }
+
+    @Test
+    void cacheHitsRefundTheUserBudget() throws Exception {
+        cache.getOrLoad(cache.key("x1", messages),
+                () -> CompletableFuture.completedFuture(ResponseEntity.ok(ANSWER)), response -> true).get();
+
+        for (int i = 0; i < 10; i++) {
+            ResponseEntity<String> response = service.chat(Map.of("model", "x1", "messages", messages), "client").get();
+            assertThat(response.getStatusCode().value()).isEqualTo(200);
+            assertThat(response.getBody()).isEqualTo(ANSWER);
+        }
+        assertThat(rateLimiter.tryAcquireUser("client", tokens * 2)).isTrue();
+    }
+
+    @Test
+    void refundsAreCappedAtCapacity() {
+        assertThat(rateLimiter.tryAcquireUser("client", tokens * 2)).isTrue();
+        assertThat(rateLimiter.tryAcquireUser("client", tokens)).isFalse();
+        rateLimiter.refundUser("client", tokens * 10);
+        assertThat(rateLimiter.tryAcquireUser("client", tokens * 2)).isTrue();
+        assertThat(rateLimiter.tryAcquireUser("client", tokens)).isFalse();
+
+        rateLimiter.tryAcquireModel("x1", 1_000_000);
+        assertThat(rateLimiter.tryAcquireModel("x1", tokens)).isFalse();
+        rateLimiter.refundModel("x1", tokens);
+        assertThat(rateLimiter.tryAcquireModel("x1", tokens)).isTrue();
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.www.support;
+
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfiguration;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+
+/**
+ * 测试用内嵌MariaDB，整个测试进程只启动一次
+ */
+public final class EmbeddedDatabase {
+    private static final String DATABASE = "www";
+
+    private static String url;
+
+    private EmbeddedDatabase() {
+    }
+
+    /**
+     * 返回数据库的JDBC地址，首次调用时启动数据库
+     */
+    public static synchronized String url() {
+        if (url == null) {
+            try {
+                DBConfigurationBuilder builder = DBConfigurationBuilder.newBuilder();
+                builder.setPort(0);
+                // 以root运行的容器中mysqld需要显式指定用户
+                builder.addArg("--user=root");
+                DBConfiguration config = builder.build();
+                DB db = DB.newEmbeddedDB(config);
+                db.start();
+                // 由驱动建库，不依赖内嵌包中的mariadb客户端
+                url = "jdbc:mysql://localhost:" + db.getConfiguration().getPort() + "/" + DATABASE
+                        + "?useUnicode=true&characterEncoding=UTF-8&serverTimezone=UTC&rewriteBatchedStatements=true&createDatabaseIfNotExist=true";
+            } catch (Exception e) {
+                throw new IllegalStateException("启动内嵌数据库失败", e);
+            }
+        }
+        return url;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.www.support;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * 集成测试基类，所有子类共用同一个Spring上下文和内嵌数据库
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public abstract class IntegrationTest {
+    @Autowired
+    protected MockMvc mockMvc;
+
+    @Autowired
+    protected JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", EmbeddedDatabase::url);
+        registry.add("spring.datasource.username", () -> "root");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    /**
+     * 清零并返回Hibernate统计，之后发出的语句都会被计数
+     */
+    protected Statistics resetStatistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+
+    /**
+     * 插入一个用户并返回ID
+     */
+    protected Long insertUser(String username, String userType) {
+        jdbcTemplate.update("INSERT INTO `user` (username, password, phone, email, user_type) VALUES (?, 'x', ?, ?, ?)",
+                username, username, username + "@test", userType);
+        return jdbcTemplate.queryForObject("SELECT id FROM `user` WHERE username = ?", Long.class, username);
+    }
+
+    /**
+     * 插入一篇文章及其计数行并返回ID
+     */
+    protected Long insertArticle(Long authorId, String title, String status) {
+        jdbcTemplate.update("INSERT INTO article (title, content, author_id, status, created_at, updated_at, published_at) "
+                + "VALUES (?, 'content', ?, ?, NOW(6), NOW(6), NOW(6))", title, authorId, status);
+        Long id = jdbcTemplate.queryForObject("SELECT LAST_INSERT_ID()", Long.class);
+        jdbcTemplate.update("INSERT INTO article_stats (article_id, view_count, like_count) VALUES (?, 0, 0)", id);
+        return id;
+    }
+}
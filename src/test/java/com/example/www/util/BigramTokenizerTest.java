@@ -0,0 +1,37 @@
+package com.example.www.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 中英文混合分词
+ */
+class BigramTokenizerTest {
+
+    @Test
+    void latinWordsAreSplitAndLowercased() {
+        assertThat(BigramTokenizer.tokenizeForIndex("Spring-Boot 3.2, JWT!"))
+                .containsExactly("spring", "boot", "3", "2", "jwt");
+    }
+
+    @Test
+    void cjkRunsIndexUnigramsAndBigrams() {
+        assertThat(BigramTokenizer.tokenizeForIndex("数据库"))
+                .containsExactly("数", "数据", "据", "据库", "库");
+        assertThat(BigramTokenizer.tokenizeForQuery("数据库")).containsExactly("数据", "据库");
+        assertThat(BigramTokenizer.tokenizeForQuery("库")).containsExactly("库");
+    }
+
+    @Test
+    void mixedTextSwitchesBetweenScripts() {
+        assertThat(BigramTokenizer.tokenizeForQuery("使用Redis缓存"))
+                .containsExactly("使用", "redis", "缓存");
+    }
+
+    @Test
+    void blankAndNullTextYieldNoTokens() {
+        assertThat(BigramTokenizer.tokenizeForQuery(null)).isEmpty();
+        assertThat(BigramTokenizer.tokenizeForQuery("  ，。!")).isEmpty();
+    }
+}
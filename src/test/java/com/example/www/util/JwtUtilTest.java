@@ -0,0 +1,97 @@
+package com.example.www.util;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Token校验、过期、篡改和缓存上限
+ */
+class JwtUtilTest {
+    private static final String SECRET_KEY = (String) ReflectionTestUtils.getField(JwtUtil.class, "SECRET_KEY");
+    private static final int MAX_CACHE_SIZE = (Integer) ReflectionTestUtils.getField(JwtUtil.class, "MAX_CACHE_SIZE");
+
+    @Test
+    void validTokenIsVerifiedAndCached() {
+        String token = JwtUtil.generateToken(7L, "alice");
+        JwtUtil.TokenClaims claims = JwtUtil.verify(token).orElseThrow();
+        assertThat(claims.getUserId()).isEqualTo(7L);
+        assertThat(claims.getUsername()).isEqualTo("alice");
+        // 第二次从缓存返回同一个对象
+        assertThat(JwtUtil.verify(token).orElseThrow()).isSameAs(claims);
+    }
+
+    @Test
+    void tamperedTokenIsRejected() {
+        String token = JwtUtil.generateToken(7L, "alice");
+        String[] parts = token.split("\\.");
+        // 替换载荷中的用户名，签名不再匹配
+        String forgedPayload = java.util.Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("{\"sub\":\"admin\",\"userId\":1}".getBytes());
+        assertThat(JwtUtil.verify(parts[0] + "." + forgedPayload + "." + parts[2])).isEmpty();
+
+        String otherKey = Jwts.builder().setSubject("alice").claim("userId", 7L)
+                .signWith(SignatureAlgorithm.HS256, "anotherSecretKey").compact();
+        assertThat(JwtUtil.verify(otherKey)).isEmpty();
+        assertThat(JwtUtil.verify("not-a-jwt")).isEmpty();
+        assertThat(JwtUtil.verify(null)).isEmpty();
+    }
+
+    @Test
+    void expiredTokenIsRejected() {
+        String expired = Jwts.builder().setSubject("alice").claim("userId", 7L)
+                .setExpiration(new Date(System.currentTimeMillis() - 1000))
+                .signWith(SignatureAlgorithm.HS256, SECRET_KEY).compact();
+        assertThat(JwtUtil.verify(expired)).isEmpty();
+    }
+
+    @Test
+    void cachedTokenExpiresWithoutReparsing() {
+        String token = JwtUtil.generateToken(8L, "bob");
+        String key = ReflectionTestUtils.invokeMethod(JwtUtil.class, "digest", token);
+        cache().put(key, new JwtUtil.TokenClaims(8L, "bob", System.currentTimeMillis() - 1));
+
+        assertThat(JwtUtil.verify(token)).isEmpty();
+        assertThat(cache()).doesNotContainKey(key);
+    }
+
+    @Test
+    void cacheStaysBoundedUnderConcurrentVerification() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                tasks.add(pool.submit(() -> {
+                    for (int i = 0; i < MAX_CACHE_SIZE / 4; i++) {
+                        String token = JwtUtil.generateToken((long) i, "user-" + thread + "-" + i);
+                        assertThat(JwtUtil.verify(token)).isPresent();
+                    }
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        // 清理由单个线程完成，其他线程可能在清理期间多放入少量条目
+        assertThat(cache().size()).isLessThanOrEqualTo(MAX_CACHE_SIZE + 8);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, JwtUtil.TokenClaims> cache() {
+        return (Map<String, JwtUtil.TokenClaims>) ReflectionTestUtils.getField(JwtUtil.class, "CACHE");
+    }
+}